@@ -0,0 +1,113 @@
+package com.example.fcmspring.notification;
+
+import com.example.fcmspring.users.UserTokenView;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 친구 요청 알림 메시지 하나(토큰 포함)를 만드는 비용을 비교합니다.
+ * <ul>
+ *     <li>legacy: 템플릿 도입 전 방식. 문자열 연결로 문구를 만들고, HashMap에 data를 모으고, 플랫폼 설정을 매번 새로 만듭니다.</li>
+ *     <li>text: 미리 파싱한 템플릿으로 문구를 만들고, data를 Message.Builder에 바로 넣고, Android 설정은 재사용합니다. (APNs 설정은 만료 시각 때문에 매번 만듭니다)</li>
+ *     <li>locKey: 문구 대신 title_loc_key/body_loc_key와 인자를 보냅니다.</li>
+ * </ul>
+ * 시간과 함께 gc 프로파일러의 gc.alloc.rate.norm(연산당 할당 바이트)을 비교하고,
+ * 시작할 때 각 방식의 메시지를 FCM 요청과 같은 JSON으로 직렬화한 크기를 출력합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationMessageBenchmark {
+
+    private static final String TOKEN = "fcm-token-" + "x".repeat(150);
+
+    // 1이면 단건 알림, 2 이상이면 요약 알림
+    @Param({"1", "5"})
+    public int requestCount;
+
+    private NotificationMessageFactory textFactory;
+    private NotificationMessageFactory locKeyFactory;
+    private final UserTokenView recipient = new UserTokenView(2L, "recipient", "", "ko");
+    private final Long requesterId = 1L;
+    private final String requesterUsername = "requester";
+
+    @Setup
+    public void setUp() throws IOException {
+        NotificationLanes lanes = new NotificationLanes(86400, 21600);
+        textFactory = new NotificationMessageFactory(
+                new NotificationTemplates(NotificationTemplates.Mode.TEXT, "ko", List.of("ko", "en")), lanes);
+        locKeyFactory = new NotificationMessageFactory(
+                new NotificationTemplates(NotificationTemplates.Mode.LOC_KEY, "ko", List.of("ko", "en")), lanes);
+
+        System.out.printf("%n[payload] requestCount=%d legacy=%dB text=%dB locKey=%dB%n", requestCount,
+                jsonBytes(legacy()), jsonBytes(text()), jsonBytes(locKey()));
+    }
+
+    private static int jsonBytes(Message message) throws IOException {
+        return GsonFactory.getDefaultInstance().toString(message).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public Message legacy() {
+        String body = requestCount > 1
+                ? requesterUsername + " 님 외 " + (requestCount - 1) + "명이 친구 요청을 보냈습니다."
+                : requesterUsername + " 님이 친구 요청을 보냈습니다.";
+        Notification notification = Notification.builder()
+                .setTitle("새로운 친구 요청")
+                .setBody(body)
+                .build();
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "FRIEND_REQUEST");
+        data.put("requesterId", String.valueOf(requesterId));
+        data.put("requesterUsername", requesterUsername);
+        data.put("recipientId", String.valueOf(recipient.id()));
+        data.put("requestCount", String.valueOf(requestCount));
+        AndroidConfig androidConfig = AndroidConfig.builder()
+                .setCollapseKey("friend_request")
+                .build();
+        ApnsConfig apnsConfig = ApnsConfig.builder()
+                .putHeader("apns-collapse-id", "friend_request")
+                .setAps(Aps.builder().build())
+                .build();
+        return Message.builder()
+                .setNotification(notification)
+                .putAllData(data)
+                .setAndroidConfig(androidConfig)
+                .setApnsConfig(apnsConfig)
+                .setToken(TOKEN)
+                .build();
+    }
+
+    @Benchmark
+    public Message text() {
+        return textFactory.friendRequest(recipient, requesterId, requesterUsername, requestCount)
+                .setToken(TOKEN)
+                .build();
+    }
+
+    @Benchmark
+    public Message locKey() {
+        return locKeyFactory.friendRequest(recipient, requesterId, requesterUsername, requestCount)
+                .setToken(TOKEN)
+                .build();
+    }
+}
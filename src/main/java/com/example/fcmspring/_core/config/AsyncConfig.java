@@ -1,12 +1,20 @@
 package com.example.fcmspring._core.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
+/**
+ * @Async 메소드는 Spring Boot가 만든 applicationTaskExecutor에서 실행됩니다.
+ * 풀 크기와 큐 용량은 spring.task.execution.pool.* 설정으로 정하며, 큐 깊이와 활성 스레드 수는
+ * executor.queued, executor.active 지표(name=applicationTaskExecutor)로 확인할 수 있습니다.
+ */
+@Slf4j
 @Configuration
 @EnableAsync // Spring에서 비동기 기능을 활성화하는 어노테이션입니다.
 public class AsyncConfig implements AsyncConfigurer {
@@ -25,14 +33,8 @@ public class AsyncConfig implements AsyncConfigurer {
         @Override
         public void handleUncaughtException(Throwable ex, Method method, Object... params) {
             // 예외가 발생했을 때 이 메소드가 호출됩니다.
-            System.err.println("==== Async Exception Details ====");
-            System.err.println("Exception message - " + ex.getMessage());
-            System.err.println("Method name - " + method.getName());
-            for (Object param : params) {
-                System.err.println("Parameter value - " + param);
-            }
-            System.err.println("===============================");
-            // 여기에 실제 운영 환경에서는 Log4j, Logback 등을 사용하여 에러 로그를 파일이나 외부 시스템에 기록하는 로직을 추가해야 합니다.
+            // 로그는 비동기 appender(logback-spring.xml)를 거쳐 기록되므로 호출한 스레드를 막지 않습니다.
+            log.error("비동기 메소드 실행 중 예외 발생. method={}, params={}", method.getName(), Arrays.toString(params), ex);
         }
     }
 }
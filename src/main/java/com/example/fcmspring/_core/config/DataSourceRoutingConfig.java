@@ -0,0 +1,104 @@
+package com.example.fcmspring._core.config;
+
+import com.example.fcmspring._core.datasource.ReplicaLagMonitor;
+import com.example.fcmspring._core.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * datasource.replica.urls가 설정되면 읽기 전용 트랜잭션을 복제본으로 보내는 DataSource를 구성합니다.
+ * 설정하지 않으면 이 설정은 적용되지 않고, Spring Boot가 spring.datasource.*로 만든 DataSource 하나를 그대로 사용합니다.
+ * <p>
+ * primary는 spring.datasource.*로, 복제본은 같은 드라이버와 계정에 URL만 바꿔서 각각 별도의 커넥션 풀로 만듭니다.
+ * 풀 지표는 hikaricp.connections.* (pool=primary, replica-0, ...)로 확인할 수 있습니다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class DataSourceRoutingConfig {
+
+    /**
+     * primary와 복제본 커넥션 풀입니다. 풀 자체는 DataSource 빈으로 등록하지 않으므로(자동 구성과 겹치지 않도록)
+     * 이 빈이 종료될 때 close로 함께 닫습니다.
+     */
+    @Bean
+    public RoutingPools routingPools(DataSourceProperties properties,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                                     @Value("${datasource.replica.pool-size:10}") int replicaPoolSize) {
+        HikariDataSource primary = pool(properties, properties.determineUrl(), "primary", meterRegistry);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(properties, replicaUrls.get(i).trim(), "replica-" + i, meterRegistry);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new RoutingPools(primary, Collections.unmodifiableMap(replicas));
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(RoutingPools routingPools,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${datasource.replica.max-lag-ms:1000}") long maxLagMs,
+                                               @Value("${datasource.replica.lag-policy:FALLBACK_TO_PRIMARY}") ReplicaLagMonitor.LagPolicy lagPolicy) {
+        return new ReplicaLagMonitor(routingPools.primary(), routingPools.replicas(), Duration.ofMillis(maxLagMs), lagPolicy, meterRegistry);
+    }
+
+    /**
+     * JPA와 SQL 초기화가 사용할 DataSource입니다.
+     * 트랜잭션이 시작될 때가 아니라 첫 SQL을 실행할 때 커넥션을 가져오도록 LazyConnectionDataSourceProxy로 감쌉니다.
+     * 그래야 라우팅 시점에 트랜잭션의 readOnly 표시가 이미 설정되어 있습니다.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingPools routingPools, ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(routingPools.replicas());
+        targets.put(ReplicaRoutingDataSource.PRIMARY, routingPools.primary());
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                List.copyOf(routingPools.replicas().keySet()), replicaLagMonitor, meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(routingPools.primary());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String url, String name, MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    /**
+     * @param primary  쓰기와 읽기-쓰기 트랜잭션이 쓰는 풀
+     * @param replicas 풀 이름(replica-0, ...) → 복제본 풀. 순서는 datasource.replica.urls와 같습니다.
+     */
+    public record RoutingPools(HikariDataSource primary, Map<String, DataSource> replicas) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            primary.close();
+            replicas.values().forEach(replica -> ((HikariDataSource) replica).close());
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.messaging.FirebaseMessaging;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.ByteArrayInputStream;
@@ -17,8 +20,14 @@ import java.nio.charset.StandardCharsets;
  * 이 클래스는 Spring Boot 애플리케이션에서 Firebase Admin SDK를 초기화하고
  * FirebaseMessaging 인스턴스를 Bean으로 등록하는 설정을 담당합니다.
  * 운영 환경에서는 환경 변수를, 개발 환경에서는 로컬 파일을 사용하여 유연하게 동작합니다.
+ * simulator 프로필에서는 FCM 시뮬레이터를 사용하므로 Firebase를 초기화하지 않습니다. (자격 증명 불필요)
+ * <p>
+ * 두 Bean 모두 @Lazy이므로 애플리케이션 시작 시에는 서비스 계정을 읽지 않고, 처음 FCM을 호출할 때 초기화합니다.
+ * 첫 호출이 여러 스레드에서 동시에 일어나도 Spring의 싱글톤 생성은 한 번만 일어나므로 FirebaseApp이 중복 초기화되지 않습니다.
  */
+@Slf4j
 @Configuration
+@Profile("!simulator")
 public class FirebaseConfig {
 
     /**
@@ -28,6 +37,7 @@ public class FirebaseConfig {
      * @throws IOException 설정 파일 로드 중 발생할 수 있는 예외
      */
     @Bean
+    @Lazy
     public FirebaseApp firebaseApp() throws IOException {
         // 1. 먼저 "FIREBASE_CONFIG_JSON" 이라는 이름의 환경 변수를 읽어옵니다.
         String firebaseConfigJson = System.getenv("FIREBASE_CONFIG_JSON");
@@ -35,13 +45,13 @@ public class FirebaseConfig {
 
         // 2. 환경 변수가 존재하고 비어있지 않은 경우 (운영 환경)
         if (firebaseConfigJson != null && !firebaseConfigJson.isEmpty()) {
-            System.out.println("운영 환경: 환경 변수에서 Firebase 설정을 로드합니다.");
+            log.info("운영 환경: 환경 변수에서 Firebase 설정을 로드합니다.");
             // 환경 변수의 JSON 문자열을 InputStream으로 변환합니다.
             serviceAccountStream = new ByteArrayInputStream(firebaseConfigJson.getBytes(StandardCharsets.UTF_8));
         }
         // 3. 환경 변수가 없는 경우 (개발 환경)
         else {
-            System.out.println("개발 환경: 로컬 파일에서 Firebase 설정을 로드합니다.");
+            log.info("개발 환경: 로컬 파일에서 Firebase 설정을 로드합니다.");
             // 기존과 동일하게 클래스패스에서 로컬 파일을 읽어옵니다.
             ClassPathResource resource = new ClassPathResource("env/service-account.json");
             serviceAccountStream = resource.getInputStream();
@@ -68,6 +78,7 @@ public class FirebaseConfig {
      * @return FirebaseMessaging 인스턴스
      */
     @Bean
+    @Lazy
     public FirebaseMessaging firebaseMessaging(FirebaseApp firebaseApp) {
         return FirebaseMessaging.getInstance(firebaseApp);
     }
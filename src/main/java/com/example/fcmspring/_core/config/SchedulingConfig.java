@@ -0,0 +1,12 @@
+package com.example.fcmspring._core.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @Scheduled 어노테이션이 붙은 백그라운드 작업(아웃박스 드레이너 등)을 활성화하는 설정입니다.
+ */
+@Configuration
+@EnableScheduling // Spring에서 주기적인 작업 실행 기능을 활성화하는 어노테이션입니다.
+public class SchedulingConfig {
+}
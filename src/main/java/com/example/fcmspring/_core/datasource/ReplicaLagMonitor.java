@@ -0,0 +1,116 @@
+package com.example.fcmspring._core.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 복제본마다 primary보다 얼마나 늦는지(복제 지연)를 주기적으로 재고, 읽기를 보내도 되는지 판단합니다.
+ * <p>
+ * primary의 replica_heartbeat 테이블에 현재 시각을 쓰고, 다음 점검 때 각 복제본에서 그 값을 읽어
+ * "마지막으로 쓴 시각 - 복제본에 보이는 시각"을 지연으로 봅니다. 그래서 지연은 점검 주기 단위로만 정확합니다.
+ * 복제본에 연결할 수 없거나 값을 읽지 못하면 정책과 관계없이 사용하지 않습니다.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    /**
+     * 복제 지연이 max-lag를 넘었을 때의 처리 방법입니다.
+     */
+    public enum LagPolicy {
+        // 지연된 복제본을 건너뛰고 다른 복제본이나 primary에서 읽습니다.
+        FALLBACK_TO_PRIMARY,
+        // 지연과 관계없이 복제본에서 읽습니다. (오래된 값을 읽어도 되는 경우)
+        IGNORE
+    }
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new ConcurrentHashMap<>();
+    private final long maxLagMillis;
+    private final LagPolicy policy;
+
+    private final Map<String, Boolean> usable = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+    // primary에 마지막으로 쓴 heartbeat 시각 (아직 쓰지 않았으면 0)
+    private long lastBeatAt;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, LagPolicy policy,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.maxLagMillis = maxLag.toMillis();
+        this.policy = policy;
+        replicas.forEach((key, dataSource) -> {
+            this.replicas.put(key, new JdbcTemplate(dataSource));
+            // 첫 점검이 성공할 때까지는 사용하지 않습니다.
+            usable.put(key, false);
+            AtomicLong lag = new AtomicLong(-1);
+            lagMillis.put(key, lag);
+            Gauge.builder("datasource.replica.lag", lag, AtomicLong::get)
+                    .description("복제본의 복제 지연(ms). 읽지 못했으면 -1")
+                    .baseUnit("milliseconds")
+                    .tag("replica", key)
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * 읽기 전용 트랜잭션을 이 복제본으로 보내도 되는지 반환합니다.
+     */
+    public boolean isUsable(String replicaKey) {
+        return usable.getOrDefault(replicaKey, false);
+    }
+
+    @PostConstruct
+    void start() {
+        primary.execute(CREATE_TABLE);
+        check();
+    }
+
+    /**
+     * 각 복제본의 지연을 재고 사용 여부를 갱신한 뒤, primary에 새 heartbeat를 씁니다.
+     * 복제본을 먼저 읽어야 "직전에 쓴 heartbeat가 복제되었는지"를 볼 수 있습니다.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public synchronized void check() {
+        replicas.forEach((key, replica) -> {
+            try {
+                Long seen = replica.query("SELECT beat_at FROM replica_heartbeat WHERE id = 1",
+                        rs -> rs.next() ? rs.getLong(1) : null);
+                // 처음 시작할 때(primary에 아직 쓰지 않았을 때)는 지연이 없다고 봅니다.
+                // heartbeat를 쓴 뒤에도 복제본에 행이 없으면 지연을 알 수 없으므로(-1) 허용치를 넘은 것으로 봅니다.
+                long lag = lastBeatAt == 0 ? 0 : seen == null ? -1 : Math.max(0, lastBeatAt - seen);
+                lagMillis.get(key).set(lag);
+                boolean nowUsable = policy == LagPolicy.IGNORE || (lag >= 0 && lag <= maxLagMillis);
+                if (usable.put(key, nowUsable) != nowUsable) {
+                    log.info("복제본 사용 여부가 바뀌었습니다. replica={}, usable={}, lagMs={}", key, nowUsable, lag);
+                }
+            } catch (Exception e) {
+                lagMillis.get(key).set(-1);
+                if (Boolean.TRUE.equals(usable.put(key, false))) {
+                    log.warn("복제본을 읽을 수 없어 사용하지 않습니다. replica={}", key, e);
+                }
+            }
+        });
+
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+            lastBeatAt = now;
+        } catch (Exception e) {
+            log.warn("primary에 복제 heartbeat를 쓰지 못했습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.fcmspring._core.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 복제본(replica)으로, 나머지는 primary로 보내는 DataSource입니다.
+ * 복제본이 여러 개면 돌아가며(round-robin) 고르고, ReplicaLagMonitor가 지연이 허용치를 넘었다고 판단한 복제본은 건너뜁니다.
+ * 쓸 수 있는 복제본이 없으면 primary에서 읽습니다.
+ * <p>
+ * 트랜잭션의 readOnly 표시는 트랜잭션이 시작된 뒤에 설정되므로, 반드시 LazyConnectionDataSourceProxy로 감싸서
+ * 첫 SQL을 실행할 때 커넥션을 고르도록 해야 합니다. (DataSourceRoutingConfig 참고)
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbackRoutes;
+
+    public ReplicaRoutingDataSource(List<String> replicaKeys, ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+        this.lagMonitor = lagMonitor;
+        this.primaryRoutes = routeCounter(meterRegistry, "primary");
+        this.replicaRoutes = routeCounter(meterRegistry, "replica");
+        this.fallbackRoutes = routeCounter(meterRegistry, "primary_fallback");
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.route")
+                .description("커넥션을 가져온 DataSource (primary_fallback: 읽기 전용이지만 쓸 수 있는 복제본이 없어 primary로 보낸 경우)")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        // 돌아가며 고르되, 지연된 복제본은 건너뜁니다.
+        int start = Math.floorMod(next.getAndIncrement(), replicaKeys.size());
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get((start + i) % replicaKeys.size());
+            if (lagMonitor.isUsable(key)) {
+                replicaRoutes.increment();
+                return key;
+            }
+        }
+        fallbackRoutes.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.fcmspring._core.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청마다 발생하는 대량 이벤트(FCM 전송 성공, 친구 요청 저장 등)의 로그를 N건 중 1건만 남기도록 골라 주는 샘플러입니다.
+ * 이벤트마다 카운터를 두고, 샘플링 간격은 log.sampling.every 설정으로 정합니다. (예: fcm.send.success=100)
+ * 설정하지 않은 이벤트는 모두 기록합니다. 에러와 경고는 샘플링하지 않고 항상 기록해야 합니다.
+ */
+@Component
+public class LogSampler {
+
+    private final Map<String, Long> intervals;
+    private final Map<String, AtomicLong> counters = new HashMap<>();
+
+    public LogSampler(@Value("${log.sampling.every:}") String every) {
+        this.intervals = parseIntervals(every);
+        // 카운터 맵은 여기서만 채우므로 이후에는 잠금 없이 읽을 수 있습니다.
+        for (String event : intervals.keySet()) {
+            counters.put(event, new AtomicLong());
+        }
+    }
+
+    /**
+     * 이번 이벤트를 로그로 남겨야 하는지 판단합니다.
+     *
+     * @param event 이벤트 이름 (log.sampling.every의 키)
+     * @return 샘플링 대상이 아니거나, 이번 호출이 N번째 호출이면 true
+     */
+    public boolean sample(String event) {
+        AtomicLong counter = counters.get(event);
+        if (counter == null) {
+            return true;
+        }
+        return counter.getAndIncrement() % intervals.get(event) == 0;
+    }
+
+    /**
+     * 이벤트의 샘플링 간격을 돌려줍니다. 로그 메시지에 "1/N" 처럼 함께 남겨 실제 건수를 추정할 수 있게 합니다.
+     */
+    public long intervalOf(String event) {
+        return intervals.getOrDefault(event, 1L);
+    }
+
+    /**
+     * "fcm.send.success=100,friend-request.saved=10" 형식의 설정을 읽습니다.
+     */
+    static Map<String, Long> parseIntervals(String value) {
+        Map<String, Long> intervals = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return intervals;
+        }
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("log.sampling.every 형식이 잘못되었습니다: " + entry);
+            }
+            long interval = Long.parseLong(pair[1].trim());
+            if (interval < 1) {
+                throw new IllegalArgumentException("샘플링 간격은 1 이상이어야 합니다: " + entry);
+            }
+            if (interval > 1) {
+                intervals.put(pair[0].trim(), interval);
+            }
+        }
+        return intervals;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fcmspring._core.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 안에서 시작해 커밋(또는 롤백)이 끝날 때까지 걸린 시간을 기록하는 타이머입니다.
+ * 메소드 안에서 시간을 재면 커밋 시점의 flush와 제약 조건 검사 시간이 빠지므로, 트랜잭션 동기화의 afterCompletion에서 측정을 끝냅니다.
+ * <p>
+ * 같은 이름의 타이머를 outcome 태그(committed, rolled_back)로 나누어 기록합니다.
+ */
+public class TransactionTimer {
+
+    private final Timer committedTimer;
+    private final Timer rolledBackTimer;
+
+    /**
+     * @param name      지표 이름 (예: friend.request.transaction)
+     * @param operation 같은 지표 안에서 작업을 구분하는 operation 태그 값 (예: single, bulk)
+     */
+    public TransactionTimer(MeterRegistry meterRegistry, String name, String description, String operation) {
+        this.committedTimer = build(meterRegistry, name, description, operation, "committed");
+        this.rolledBackTimer = build(meterRegistry, name, description, operation, "rolled_back");
+    }
+
+    private static Timer build(MeterRegistry meterRegistry, String name, String description, String operation, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 측정을 시작합니다. 트랜잭션이 끝나면 자동으로 기록됩니다.
+     * 트랜잭션 밖에서 호출되면 기록하지 않습니다.
+     */
+    public void start() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Timer timer = status == STATUS_COMMITTED ? committedTimer : rolledBackTimer;
+                timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.fcmspring.friends;
+
+import java.util.List;
+
+/**
+ * 여러 사용자에게 한 번에 친구 요청을 보낸 결과입니다.
+ *
+ * @param createdRequestIds     새로 저장된 친구 요청 ID 목록
+ * @param invalidRecipientIds   존재하지 않거나 자기 자신이어서 건너뛴 수신자 ID 목록
+ * @param duplicateRecipientIds 이미 대기 중인 요청이 있어서 건너뛴 수신자 ID 목록
+ * @param friendRecipientIds    이미 친구여서 건너뛴 수신자 ID 목록
+ */
+public record BulkSendResult(List<Long> createdRequestIds,
+                             List<Long> invalidRecipientIds,
+                             List<Long> duplicateRecipientIds,
+                             List<Long> friendRecipientIds) {
+}
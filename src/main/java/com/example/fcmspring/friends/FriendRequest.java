@@ -7,33 +7,61 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity // 이 클래스가 JPA 엔티티임을 선언합니다. 데이터베이스의 테이블과 매핑됩니다.
-@Table(name = "friend_requests") // 매핑될 테이블의 이름을 'friend_requests'로 지정합니다.
+@Table(name = "friend_requests", // 매핑될 테이블의 이름을 'friend_requests'로 지정합니다.
+        // 받은 친구 요청함 조회(수신자 + 상태로 거르고 요청 시간 역순 정렬)가 인덱스만으로 처리되도록 복합 인덱스를 만듭니다.
+        indexes = {
+                @Index(name = "idx_friend_requests_inbox", columnList = "recipient_id, status, requested_at"),
+                // 오래된 요청 정리(만료, 보관)가 상태와 요청 시간 순서로 필요한 범위만 읽도록 합니다.
+                @Index(name = "idx_friend_requests_retention", columnList = "status, requested_at, id")
+        },
+        uniqueConstraints = {
+                // 같은 요청자가 같은 멱등성 키로 두 번 저장할 수 없습니다. (클라이언트 재시도 중복 방지)
+                @UniqueConstraint(name = "uk_friend_requests_idempotency", columnNames = {"requester_id", "idempotency_key"}),
+                // 같은 요청자 → 수신자 사이에 대기 중(PENDING)인 요청은 하나만 존재할 수 있습니다.
+                @UniqueConstraint(name = "uk_friend_requests_pending_pair", columnNames = {"pending_pair"})
+        })
 @Data // Lombok: @Getter, @Setter, @ToString, @EqualsAndHashCode, @RequiredArgsConstructor를 자동으로 생성합니다.
 @NoArgsConstructor // Lombok: 파라미터가 없는 기본 생성자를 생성합니다. JPA는 엔티티 객체 생성 시 기본 생성자를 필요로 합니다.
 public class FriendRequest {
 
     @Id // 이 필드가 테이블의 기본 키(Primary Key)임을 나타냅니다.
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 기본 키 생성을 데이터베이스(예: MySQL의 AUTO_INCREMENT)에 위임합니다.
+    // IDENTITY 방식은 INSERT를 실행해야 ID를 알 수 있어 Hibernate가 INSERT를 JDBC 배치로 묶지 못합니다.
+    // 시퀀스에서 50개씩 미리 받아오는(pooled) 방식으로 바꾸어, 대량 저장 시 INSERT를 배치로 보낼 수 있게 합니다.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "friend_requests_seq_gen")
+    @SequenceGenerator(name = "friend_requests_seq_gen", sequenceName = "friend_requests_seq", allocationSize = 50)
     private Long id;
 
     // 친구 요청을 보낸 사용자의 ID
-    @Column(nullable = false) // 데이터베이스 컬럼 설정: null 값을 허용하지 않습니다[1].
+    @Column(name = "requester_id", nullable = false) // 데이터베이스 컬럼 설정: null 값을 허용하지 않습니다[1].
     private Long requesterId;
 
     // 친구 요청을 받은 사용자의 ID
-    @Column(nullable = false) // 데이터베이스 컬럼 설정: null 값을 허용하지 않습니다[1].
+    @Column(name = "recipient_id", nullable = false) // 데이터베이스 컬럼 설정: null 값을 허용하지 않습니다[1].
     private Long recipientId;
 
-    // 친구 요청의 현재 상태 (PENDING, ACCEPTED, REJECTED)
+    // 친구 요청의 현재 상태 (PENDING, ACCEPTED, REJECTED, EXPIRED)
     @Enumerated(EnumType.STRING) // Enum 타입을 데이터베이스에 저장할 때, Enum의 이름(문자열)으로 저장하도록 설정합니다.
-    @Column(nullable = false)
+    @Column(name = "status", nullable = false)
     private FriendRequestStatus status;
 
     // 친구 요청이 생성된 시간
     // JPA가 자동으로 Java의 LocalDateTime 객체를 데이터베이스의 TIMESTAMP 타입과 매핑해줍니다[2][5].
-    @Column(nullable = false)
+    @Column(name = "requested_at", nullable = false)
     private LocalDateTime requestedAt;
 
+    // 클라이언트가 보낸 멱등성 키(Idempotency-Key 헤더). 재시도된 요청을 같은 요청으로 알아보는 데 사용합니다.
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    // 대기 중인 요청에만 "요청자ID:수신자ID" 값을 채웁니다. 수락/거절되면 null로 바꿉니다.
+    // 유니크 제약은 null을 중복으로 보지 않으므로, 이 컬럼 하나로 "대기 중인 요청은 쌍마다 하나"를 DB가 보장합니다.
+    @Column(name = "pending_pair", length = 41)
+    private String pendingPair;
+
+    // 수신자가 요청을 수락하거나 거절한 시간, 또는 만료된 시간 (대기 중이면 null)
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;
+
     /**
      * 요청자와 수신자 ID를 받아 FriendRequest 객체를 생성하는 생성자입니다.
      * 객체가 생성될 때 상태와 요청 시간을 자동으로 초기화합니다.
@@ -46,5 +74,13 @@ public class FriendRequest {
         this.recipientId = recipientId;
         this.status = FriendRequestStatus.PENDING; // 상태를 'PENDING'으로 기본 설정
         this.requestedAt = LocalDateTime.now();    // 현재 시간을 요청 시간으로 설정[5]
+        this.pendingPair = pendingPairOf(requesterId, recipientId);
+    }
+
+    /**
+     * 요청자와 수신자 ID로 pending_pair 컬럼 값을 만듭니다.
+     */
+    public static String pendingPairOf(Long requesterId, Long recipientId) {
+        return requesterId + ":" + recipientId;
     }
 }
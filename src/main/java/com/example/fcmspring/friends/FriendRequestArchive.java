@@ -0,0 +1,43 @@
+package com.example.fcmspring.friends;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * friend_requests에서 옮겨온 오래된(거절되었거나 만료된) 친구 요청입니다.
+ * 조회 경로에서는 읽지 않는 기록용 테이블이므로, 조회용 인덱스와 유니크 제약 없이 기본 키만 둡니다.
+ * 행은 FriendRequestRetentionJob이 INSERT ... SELECT로만 채웁니다.
+ */
+@Entity
+@Table(name = "friend_requests_archive")
+@Data
+@NoArgsConstructor
+public class FriendRequestArchive {
+
+    // 원래 friend_requests의 ID를 그대로 사용합니다.
+    @Id
+    private Long id;
+
+    @Column(name = "requester_id", nullable = false)
+    private Long requesterId;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private FriendRequestStatus status;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;
+
+    // 보관 테이블로 옮긴 시간
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
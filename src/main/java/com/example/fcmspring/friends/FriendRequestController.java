@@ -1,24 +1,46 @@
 package com.example.fcmspring.friends;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Flutter 클라이언트로부터 들어오는 친구 요청 관련 HTTP API 요청을 처리하는 컨트롤러입니다.
  */
+@Slf4j
 @RestController // 이 클래스가 RESTful 웹 서비스의 컨트롤러임을 나타냅니다. @ResponseBody가 포함되어 있어 메소드 반환값이 자동으로 JSON으로 변환됩니다.
 @RequestMapping("/api/friend-requests") // 이 컨트롤러의 모든 API는 '/api/friend-requests' 라는 기본 경로를 가집니다.
 public class FriendRequestController {
 
     private final FriendRequestService friendRequestService;
+    private final IdempotentFriendRequestSender idempotentFriendRequestSender;
+    private final ObjectMapper objectMapper;
 
-    // 생성자를 통해 FriendRequestService를 주입받습니다.
-    public FriendRequestController(FriendRequestService friendRequestService) {
+    // 생성자를 통해 필요한 서비스와 JSON 변환에 사용할 ObjectMapper를 주입받습니다.
+    public FriendRequestController(FriendRequestService friendRequestService,
+                                   IdempotentFriendRequestSender idempotentFriendRequestSender,
+                                   ObjectMapper objectMapper) {
         this.friendRequestService = friendRequestService;
+        this.idempotentFriendRequestSender = idempotentFriendRequestSender;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -31,16 +53,30 @@ public class FriendRequestController {
         private Long toId;
     }
 
+    /**
+     * 여러 사용자에게 한 번에 친구 요청을 보내기 위한 DTO 클래스입니다.
+     */
+    @Data
+    public static class BulkFriendRequestDto {
+        private Long fromId;
+        private List<Long> toIds; // 요청을 받을 사용자 ID 목록
+    }
+
     /**
      * 친구 요청을 보내는 API 엔드포인트입니다.
      * HTTP POST 메소드와 '/send' 경로에 매핑됩니다. (최종 URL: POST /api/friend-requests/send)
      *
-     * @param requestDto 클라이언트가 보낸 JSON 요청 본문을 FriendRequestDto 객체로 변환하여 받습니다.
+     * 네트워크가 불안정해 클라이언트가 같은 요청을 재시도하더라도, Idempotency-Key 헤더가 같으면
+     * 처음 저장된 요청의 ID를 그대로 돌려주고 DB 저장과 알림 전송을 다시 하지 않습니다.
+     *
+     * @param requestDto     클라이언트가 보낸 JSON 요청 본문을 FriendRequestDto 객체로 변환하여 받습니다.
+     * @param idempotencyKey 클라이언트가 요청마다 생성한 고유 키 (선택, 최대 64자)
      * @return 처리 결과에 따른 HTTP 응답을 담은 ResponseEntity 객체
      */
     @PostMapping("/send")
-    public ResponseEntity<?> sendFriendRequest(@RequestBody FriendRequestDto requestDto) {
-        System.out.println(requestDto.toString());
+    public ResponseEntity<?> sendFriendRequest(@RequestBody FriendRequestDto requestDto,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        log.debug("친구 요청 수신: {}", requestDto);
         try {
             // [중요] 실제 애플리케이션에서는 이 부분을 반드시 수정해야 합니다.
             // Spring Security 같은 인증 프레임워크를 사용하여 현재 로그인된 사용자의 ID를 가져와야 합니다.
@@ -48,11 +84,17 @@ public class FriendRequestController {
             // Long requesterId = userDetails.getId();
             Long requesterId = 1L; // 여기서는 테스트를 위해 요청자 ID를 1번으로 하드코딩합니다.
 
+            if (idempotencyKey != null && idempotencyKey.length() > 64) {
+                throw new IllegalArgumentException("Idempotency-Key는 64자를 넘을 수 없습니다.");
+            }
+
             // 서비스 계층에 실제 비즈니스 로직 처리를 위임합니다.
-            FriendRequest newRequest = friendRequestService.sendFriendRequest(requestDto.fromId, requestDto.toId);
+            // 중복 요청이면 새로 저장하지 않고 기존 요청의 ID를 돌려받습니다.
+            IdempotentFriendRequestSender.SendResult result =
+                    idempotentFriendRequestSender.send(requestDto.fromId, requestDto.toId, idempotencyKey);
 
-            // 성공적으로 처리된 경우, HTTP 200 OK 상태와 함께 성공 메시지를 반환합니다.
-            return ResponseEntity.ok("친구 요청이 성공적으로 전송되었습니다. 요청 ID: " + newRequest.getId());
+            // 성공적으로 처리된 경우(중복 요청 포함), HTTP 200 OK 상태와 함께 성공 메시지를 반환합니다.
+            return ResponseEntity.ok("친구 요청이 성공적으로 전송되었습니다. 요청 ID: " + result.requestId());
 
         } catch (IllegalArgumentException e) {
             // 서비스에서 발생시킨 유효성 검증 예외를 처리합니다.
@@ -60,9 +102,141 @@ public class FriendRequestController {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             // 그 외 예상치 못한 서버 내부 오류를 처리합니다.
-            System.err.println("친구 요청 처리 중 서버 오류: " + e.getMessage());
+            log.error("친구 요청 처리 중 서버 오류. request={}", requestDto, e);
             // HTTP 500 Internal Server Error 상태와 함께 일반적인 에러 메시지를 반환합니다.
             return ResponseEntity.internalServerError().body("친구 요청 처리 중 오류가 발생했습니다.");
         }
     }
+
+    /**
+     * 여러 사용자에게 한 번에 친구 요청을 보내는 API 엔드포인트입니다. (연락처 가져오기 등)
+     * (최종 URL: POST /api/friend-requests/send/batch)
+     * 요청마다 트랜잭션을 따로 여는 대신, 한 트랜잭션에서 검증하고 JDBC 배치로 저장합니다.
+     *
+     * @param requestDto 요청자 ID와 수신자 ID 목록
+     * @return 저장된 요청 ID와 건너뛴 수신자 목록
+     */
+    @PostMapping("/send/batch")
+    public ResponseEntity<?> sendFriendRequests(@RequestBody BulkFriendRequestDto requestDto) {
+        if (requestDto.fromId == null || requestDto.toIds == null || requestDto.toIds.isEmpty()) {
+            return ResponseEntity.badRequest().body("요청자 ID와 수신자 ID 목록이 필요합니다.");
+        }
+        try {
+            // [중요] 단건 API와 마찬가지로, 실제 애플리케이션에서는 요청자 ID를 인증 정보에서 가져와야 합니다.
+            return ResponseEntity.ok(friendRequestService.sendFriendRequests(requestDto.fromId, requestDto.toIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("대량 친구 요청 처리 중 서버 오류. fromId={}, count={}", requestDto.fromId, requestDto.toIds.size(), e);
+            return ResponseEntity.internalServerError().body("친구 요청 처리 중 오류가 발생했습니다.");
+        }
+    }
+
+    /**
+     * 받은 친구 요청을 수락하는 API 엔드포인트입니다.
+     * (최종 URL: POST /api/friend-requests/{id}/accept?recipientId=2)
+     * 이미 수락한 요청을 다시 수락하면 아무것도 바꾸지 않고 200을 돌려주므로, 클라이언트는 안전하게 재시도할 수 있습니다.
+     * 요청을 보냈던 사용자에게는 수락 알림이 전송됩니다.
+     *
+     * @param id          친구 요청 ID
+     * @param recipientId 요청을 받은 사용자의 ID
+     * @return 처리 결과 (없는 요청이면 404, 이미 거절된 요청이면 409)
+     */
+    @PostMapping("/{id}/accept")
+    public ResponseEntity<?> acceptFriendRequest(@PathVariable Long id, @RequestParam Long recipientId) {
+        // [중요] 받은 친구 요청함 API와 마찬가지로, 실제 애플리케이션에서는 recipientId를 인증 정보에서 가져와야 합니다.
+        return respond(id, recipientId, FriendRequestStatus.ACCEPTED);
+    }
+
+    /**
+     * 받은 친구 요청을 거절하는 API 엔드포인트입니다.
+     * (최종 URL: POST /api/friend-requests/{id}/reject?recipientId=2)
+     *
+     * @param id          친구 요청 ID
+     * @param recipientId 요청을 받은 사용자의 ID
+     * @return 처리 결과 (없는 요청이면 404, 이미 수락된 요청이면 409)
+     */
+    @PostMapping("/{id}/reject")
+    public ResponseEntity<?> rejectFriendRequest(@PathVariable Long id, @RequestParam Long recipientId) {
+        return respond(id, recipientId, FriendRequestStatus.REJECTED);
+    }
+
+    private ResponseEntity<?> respond(Long id, Long recipientId, FriendRequestStatus decision) {
+        try {
+            return ResponseEntity.ok(friendRequestService.respond(id, recipientId, decision));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 친구 요청 목록을 키셋(keyset) 방식으로 한 페이지씩 조회하는 API 엔드포인트입니다.
+     * (최종 URL: GET /api/friend-requests?after=0&size=100)
+     * 응답의 nextAfter 값을 다음 요청의 after 파라미터로 넘기면 다음 페이지를 받을 수 있습니다.
+     *
+     * @param after 이전 페이지의 마지막 ID (첫 페이지는 0)
+     * @param size  페이지 크기 (최대 1000)
+     * @return 조회된 페이지
+     */
+    @GetMapping
+    public ResponseEntity<FriendRequestPage> getFriendRequests(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(friendRequestService.findPage(after, size));
+    }
+
+    /**
+     * 로그인한 사용자가 받은 대기 중인 친구 요청을 최신순으로 조회하는 API 엔드포인트입니다.
+     * (최종 URL: GET /api/friend-requests/inbox?recipientId=2&size=20&cursor=...)
+     * 클라이언트가 자주 폴링하는 API이므로 필요한 값만 담은 DTO로 응답합니다.
+     *
+     * @param recipientId 수신자 ID
+     * @param cursor      이전 응답의 nextCursor 값 (첫 페이지는 생략)
+     * @param size        페이지 크기 (최대 100)
+     * @return 받은 친구 요청함의 한 페이지
+     */
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            @RequestParam Long recipientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        // [중요] 친구 요청 전송 API와 마찬가지로, 실제 애플리케이션에서는 recipientId를 파라미터로 받지 않고
+        // 인증 정보에서 현재 로그인된 사용자의 ID를 가져와야 합니다.
+        try {
+            return ResponseEntity.ok(friendRequestService.findInbox(recipientId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 모든 친구 요청을 NDJSON(한 줄에 JSON 하나) 형식으로 내보내는 API 엔드포인트입니다.
+     * (최종 URL: GET /api/friend-requests/export)
+     * DB 커서에서 읽은 행을 바로 응답에 쓰므로, 전체 목록을 메모리에 올리지 않습니다.
+     *
+     * @return 행을 읽는 대로 응답에 쓰는 StreamingResponseBody
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportFriendRequests() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            friendRequestService.exportAll(row -> writeLine(out, row));
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, FriendRequestView row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            // 클라이언트 연결이 끊긴 경우 등. 예외를 던져 커서와 트랜잭션을 바로 정리합니다.
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.fcmspring.friends;
+
+import java.util.List;
+
+/**
+ * 키셋(keyset) 방식으로 조회한 친구 요청 목록의 한 페이지입니다.
+ *
+ * @param items     이번 페이지의 친구 요청 목록
+ * @param nextAfter 다음 페이지를 요청할 때 after 파라미터로 넘길 값. 마지막 페이지이면 null입니다.
+ */
+public record FriendRequestPage(List<FriendRequestView> items, Long nextAfter) {
+}
@@ -1,11 +1,15 @@
 package com.example.fcmspring.friends;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * JpaRepository를 사용하지 않고 EntityManager(em)를 직접 사용하여
@@ -37,6 +41,15 @@ public class FriendRequestRepository {
         return friendRequest;
     }
 
+    /**
+     * flushAndClear: 쌓여있는 INSERT를 DB로 보내고 영속성 컨텍스트를 비웁니다.
+     * 대량 저장 중 주기적으로 호출하여 JDBC 배치 단위로 전송하고, 저장한 엔티티가 메모리에 계속 쌓이지 않도록 합니다.
+     */
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
     /**
      * findById: 기본 키(ID)를 사용하여 엔티티를 조회합니다.
      *
@@ -52,15 +65,241 @@ public class FriendRequestRepository {
     }
 
     /**
-     * findAll: 테이블의 모든 엔티티를 조회합니다.
+     * respond: 대기 중(PENDING)인 친구 요청을 수락 또는 거절 상태로 바꿉니다.
+     * 상태 확인과 변경을 "WHERE status = PENDING" 조건이 붙은 UPDATE 한 문장으로 처리하므로,
+     * 먼저 읽고 나중에 쓰는(read-modify-write) 방식과 달리 행을 미리 잠그지 않고, 동시에 두 요청이 와도 한쪽만 성공합니다.
+     * pending_pair도 함께 비워서 같은 사용자에게 다시 친구 요청을 보낼 수 있게 합니다.
+     * 벌크 UPDATE는 영속성 컨텍스트를 거치지 않으므로, 이미 읽어 둔 엔티티가 있다면 그 값은 바뀌지 않습니다.
+     *
+     * @param id          친구 요청 ID
+     * @param recipientId 요청을 받은 사용자의 ID (요청을 받은 사람만 처리할 수 있습니다)
+     * @param decision    바꿀 상태 (ACCEPTED 또는 REJECTED)
+     * @return 바뀐 행 수 (0 또는 1)
+     */
+    @Transactional
+    public int respond(Long id, Long recipientId, FriendRequestStatus decision) {
+        return em.createQuery(
+                        "UPDATE FriendRequest f SET f.status = :decision, f.pendingPair = NULL, f.respondedAt = :now " +
+                                "WHERE f.id = :id AND f.recipientId = :recipientId AND f.status = :pending")
+                .setParameter("decision", decision)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .setParameter("recipientId", recipientId)
+                .setParameter("pending", FriendRequestStatus.PENDING)
+                .executeUpdate();
+    }
+
+    /**
+     * findRetentionChunk: 주어진 상태이면서 요청 시간이 before보다 이전인 행을 (요청 시간, ID) 순서로 한 묶음 조회합니다.
+     * (status, requested_at, id) 인덱스를 순서대로 따라 읽으므로, 정렬 없이 필요한 범위만 읽습니다.
+     * cursor가 있으면 그 행 다음부터 조회합니다.
+     *
+     * @param status 조회할 상태
+     * @param before 이 시간보다 이전에 요청된 행만 조회합니다.
+     * @param cursor 이전 묶음의 마지막 행 위치 (첫 묶음은 null)
+     * @param size   조회할 최대 개수
+     * @return 조회된 행의 (요청 시간, ID) 목록
+     */
+    public List<RetentionCursor> findRetentionChunk(FriendRequestStatus status, LocalDateTime before,
+                                                    RetentionCursor cursor, int size) {
+        String select = "SELECT new com.example.fcmspring.friends.RetentionCursor(f.requestedAt, f.id) " +
+                "FROM FriendRequest f WHERE f.status = :status AND f.requestedAt < :before ";
+        String order = "ORDER BY f.requestedAt, f.id";
+
+        if (cursor == null) {
+            return em.createQuery(select + order, RetentionCursor.class)
+                    .setParameter("status", status)
+                    .setParameter("before", before)
+                    .setMaxResults(size)
+                    .getResultList();
+        }
+        return em.createQuery(select +
+                        "AND (f.requestedAt > :requestedAt OR (f.requestedAt = :requestedAt AND f.id > :id)) " + order,
+                        RetentionCursor.class)
+                .setParameter("status", status)
+                .setParameter("before", before)
+                .setParameter("requestedAt", cursor.requestedAt())
+                .setParameter("id", cursor.id())
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    /**
+     * expirePending: 주어진 ID 중 아직 대기 중(PENDING)인 요청을 만료(EXPIRED) 상태로 바꿉니다.
+     * 조회한 뒤에 수락/거절된 요청은 조건에 걸리지 않으므로, 사용자의 응답을 덮어쓰지 않습니다.
+     * pending_pair를 비우므로 같은 사용자에게 다시 친구 요청을 보낼 수 있습니다.
+     *
+     * @param ids 만료할 친구 요청 ID 목록
+     * @param now 만료된 시간 (responded_at에 기록합니다)
+     * @return 바뀐 행 수
+     */
+    @Transactional
+    public int expirePending(Collection<Long> ids, LocalDateTime now) {
+        return em.createQuery(
+                        "UPDATE FriendRequest f SET f.status = :expired, f.pendingPair = NULL, f.respondedAt = :now " +
+                                "WHERE f.id IN :ids AND f.status = :pending")
+                .setParameter("expired", FriendRequestStatus.EXPIRED)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .setParameter("pending", FriendRequestStatus.PENDING)
+                .executeUpdate();
+    }
+
+    /**
+     * archive: 주어진 ID의 행을 friend_requests_archive로 옮깁니다.
+     * 복사(INSERT ... SELECT)와 삭제를 한 트랜잭션에서 처리하므로, 행이 두 테이블에 모두 있거나 모두 없는 순간은 없습니다.
+     * 주어진 상태인 행만 옮기므로, 그 사이에 상태가 바뀐 행은 남겨둡니다.
+     *
+     * @param ids    옮길 친구 요청 ID 목록
+     * @param status 옮길 행의 상태
+     * @param now    보관 시간
+     * @return 옮긴 행 수
+     */
+    @Transactional
+    public int archive(Collection<Long> ids, FriendRequestStatus status, LocalDateTime now) {
+        em.createQuery(
+                        "INSERT INTO FriendRequestArchive (id, requesterId, recipientId, status, requestedAt, respondedAt, archivedAt) " +
+                                "SELECT f.id, f.requesterId, f.recipientId, f.status, f.requestedAt, f.respondedAt, :now " +
+                                "FROM FriendRequest f WHERE f.id IN :ids AND f.status = :status")
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .setParameter("status", status)
+                .executeUpdate();
+        return em.createQuery("DELETE FROM FriendRequest f WHERE f.id IN :ids AND f.status = :status")
+                .setParameter("ids", ids)
+                .setParameter("status", status)
+                .executeUpdate();
+    }
+
+    /**
+     * findIdByIdempotencyKey: 요청자와 멱등성 키로 이미 저장된 친구 요청의 ID를 조회합니다.
+     *
+     * @return 저장된 요청의 ID를 담은 Optional. 없으면 빈 Optional을 반환합니다.
+     */
+    public Optional<Long> findIdByIdempotencyKey(Long requesterId, String idempotencyKey) {
+        return em.createQuery(
+                        "SELECT f.id FROM FriendRequest f WHERE f.requesterId = :requesterId AND f.idempotencyKey = :idempotencyKey",
+                        Long.class)
+                .setParameter("requesterId", requesterId)
+                .setParameter("idempotencyKey", idempotencyKey)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * findPendingId: 요청자 → 수신자 사이에 대기 중인 친구 요청의 ID를 조회합니다.
+     * pending_pair 유니크 인덱스를 사용하므로 한 번의 인덱스 조회로 끝납니다.
+     *
+     * @return 대기 중인 요청의 ID를 담은 Optional. 없으면 빈 Optional을 반환합니다.
+     */
+    public Optional<Long> findPendingId(Long requesterId, Long recipientId) {
+        return em.createQuery("SELECT f.id FROM FriendRequest f WHERE f.pendingPair = :pendingPair", Long.class)
+                .setParameter("pendingPair", FriendRequest.pendingPairOf(requesterId, recipientId))
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * findPendingPairs: 주어진 pending_pair 값 중 이미 대기 중인 요청이 있는 값을 조회합니다.
+     * 대량 요청에서 이미 보낸 요청을 한 번의 쿼리로 걸러내는 데 사용합니다.
+     *
+     * @param pendingPairs 확인할 pending_pair 값 목록
+     * @return 이미 존재하는 pending_pair 값 목록
+     */
+    public List<String> findPendingPairs(Collection<String> pendingPairs) {
+        if (pendingPairs.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("SELECT f.pendingPair FROM FriendRequest f WHERE f.pendingPair IN :pendingPairs", String.class)
+                .setParameter("pendingPairs", pendingPairs)
+                .getResultList();
+    }
+
+    /**
+     * findPageAfter: ID가 afterId보다 큰 친구 요청을 ID 순서대로 최대 size개 조회합니다.
+     * OFFSET 방식과 달리 기본 키 인덱스에서 바로 시작 위치를 찾으므로(keyset/seek 방식),
+     * 뒤쪽 페이지로 갈수록 느려지지 않습니다.
+     *
+     * @param afterId 이전 페이지의 마지막 ID (첫 페이지는 0)
+     * @param size    조회할 최대 개수
+     * @return 조회된 친구 요청 DTO 목록
+     */
+    public List<FriendRequestView> findPageAfter(Long afterId, int size) {
+        return em.createQuery(
+                        "SELECT new com.example.fcmspring.friends.FriendRequestView(f.id, f.requesterId, f.recipientId, f.status, f.requestedAt) " +
+                                "FROM FriendRequest f WHERE f.id > :afterId ORDER BY f.id", FriendRequestView.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    /**
+     * streamAll: 모든 친구 요청을 ID 순서대로 한 행씩 읽어오는 Stream을 반환합니다.
+     * 결과를 List로 모으지 않고 전진 전용(forward-only) 커서에서 fetch size 단위로 가져오므로
+     * 테이블 크기와 관계없이 메모리 사용량이 일정합니다.
+     * 반환된 Stream은 열려 있는 커서를 가지고 있으므로 반드시 트랜잭션 안에서 사용하고 닫아야 합니다.
+     *
+     * @param fetchSize 드라이버가 한 번에 가져올 행 수
+     * @return 친구 요청 DTO의 Stream
+     */
+    public Stream<FriendRequestView> streamAll(int fetchSize) {
+        return em.createQuery(
+                        "SELECT new com.example.fcmspring.friends.FriendRequestView(f.id, f.requesterId, f.recipientId, f.status, f.requestedAt) " +
+                                "FROM FriendRequest f ORDER BY f.id", FriendRequestView.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream(); // Hibernate는 getResultStream을 ScrollMode.FORWARD_ONLY 커서로 구현합니다.
+    }
+
+    /**
+     * streamAcceptedPairs: 수락된(ACCEPTED) 친구 요청의 (요청자 ID, 수신자 ID) 쌍을 한 행씩 읽어오는 Stream을 반환합니다.
+     * 친구 관계 인덱스(FriendshipGraph)를 만들 때 사용하며, 엔티티 대신 두 ID만 읽어 메모리 사용을 줄입니다.
+     * streamAll과 마찬가지로 반드시 트랜잭션 안에서 사용하고 닫아야 합니다.
      *
-     * @return 모든 FriendRequest 객체의 리스트
+     * @param fetchSize 드라이버가 한 번에 가져올 행 수
+     * @return {요청자 ID, 수신자 ID} 배열의 Stream
      */
-    public List<FriendRequest> findAll() {
-        // JPQL(Java Persistence Query Language)을 사용하여 쿼리를 작성합니다.
-        // "SELECT f FROM FriendRequest f"는 FriendRequest 테이블의 모든 데이터를 조회하라는 의미입니다.
-        // SQL과 비슷하지만 테이블 이름 대신 엔티티 클래스 이름을 사용합니다.
-        return em.createQuery("SELECT f FROM FriendRequest f", FriendRequest.class)
-                .getResultList(); // 쿼리 실행 결과를 리스트 형태로 반환받습니다.
+    public Stream<long[]> streamAcceptedPairs(int fetchSize) {
+        return em.createQuery(
+                        "SELECT f.requesterId, f.recipientId FROM FriendRequest f WHERE f.status = :status", Object[].class)
+                .setParameter("status", FriendRequestStatus.ACCEPTED)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> new long[]{(Long) row[0], (Long) row[1]});
+    }
+
+    /**
+     * findInbox: 특정 사용자가 받은 대기 중(PENDING)인 친구 요청을 최신순으로 조회합니다.
+     * (recipient_id, status, requested_at) 복합 인덱스를 따라 읽으므로 테이블 전체를 훑지 않습니다.
+     * cursor가 있으면 그 항목보다 이전(더 오래된) 요청부터 조회합니다.
+     *
+     * @param recipientId 수신자 ID
+     * @param cursor      이전 페이지의 마지막 항목 위치 (첫 페이지는 null)
+     * @param size        조회할 최대 개수
+     * @return 받은 친구 요청함 항목 목록
+     */
+    public List<InboxItem> findInbox(Long recipientId, InboxCursor cursor, int size) {
+        String select = "SELECT new com.example.fcmspring.friends.InboxItem(f.id, f.requesterId, u.username, f.requestedAt) " +
+                "FROM FriendRequest f JOIN User u ON u.id = f.requesterId " +
+                "WHERE f.recipientId = :recipientId AND f.status = :status ";
+        String order = "ORDER BY f.requestedAt DESC, f.id DESC";
+
+        if (cursor == null) {
+            return em.createQuery(select + order, InboxItem.class)
+                    .setParameter("recipientId", recipientId)
+                    .setParameter("status", FriendRequestStatus.PENDING)
+                    .setMaxResults(size)
+                    .getResultList();
+        }
+        return em.createQuery(select +
+                        "AND (f.requestedAt < :requestedAt OR (f.requestedAt = :requestedAt AND f.id < :id)) " + order,
+                        InboxItem.class)
+                .setParameter("recipientId", recipientId)
+                .setParameter("status", FriendRequestStatus.PENDING)
+                .setParameter("requestedAt", cursor.requestedAt())
+                .setParameter("id", cursor.id())
+                .setMaxResults(size)
+                .getResultList();
     }
 }
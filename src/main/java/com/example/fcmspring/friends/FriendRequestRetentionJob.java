@@ -0,0 +1,153 @@
+package com.example.fcmspring.friends;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * friend_requests가 계속 커지지 않도록 오래된 친구 요청을 정리하는 백그라운드 작업입니다.
+ * <ul>
+ *     <li>만료: expire-after-days 동안 응답이 없는 PENDING 요청을 EXPIRED로 바꿉니다. 받은 친구 요청함에서 사라지고, 다시 요청을 보낼 수 있습니다.</li>
+ *     <li>보관: archive-after-days보다 오래된 REJECTED, EXPIRED 요청을 friend_requests_archive로 옮깁니다.
+ *     ACCEPTED 요청은 친구 관계 그 자체이므로(FriendshipGraph 참고) 옮기지 않습니다.</li>
+ * </ul>
+ * 한 번에 chunk-size 행씩, (요청 시간, ID) 키셋 커서로 이어서 읽고 묶음마다 짧은 트랜잭션으로 처리합니다.
+ * 그래서 큰 트랜잭션이나 오래 잡는 잠금이 없고, 묶음 사이에는 chunk-pause-ms만큼 쉬어 서비스 트래픽에 DB를 양보합니다.
+ * 한 번의 실행은 max-run-ms까지만 돌고, 남은 행은 다음 실행에서 이어서 처리합니다.
+ * <p>
+ * 처리한 행 수는 friend.request.retention.rows 지표(action=expired, archived)로, 밀린 정도는
+ * friend.request.retention.lag 지표(남은 행 중 가장 오래된 행이 기준 시간을 넘긴 초)로 확인할 수 있습니다.
+ */
+@Slf4j
+@Component
+public class FriendRequestRetentionJob {
+
+    private static final List<FriendRequestStatus> ARCHIVABLE = List.of(FriendRequestStatus.REJECTED, FriendRequestStatus.EXPIRED);
+
+    private final FriendRequestRepository friendRequestRepository;
+    private final Duration expireAfter;
+    private final Duration archiveAfter;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+    private final long maxRunMillis;
+
+    private final Counter expiredCounter;
+    private final Counter archivedCounter;
+    private final AtomicLong expireLagSeconds = new AtomicLong();
+    private final AtomicLong archiveLagSeconds = new AtomicLong();
+
+    public FriendRequestRetentionJob(FriendRequestRepository friendRequestRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${friend-request.retention.expire-after-days:30}") long expireAfterDays,
+                                     @Value("${friend-request.retention.archive-after-days:90}") long archiveAfterDays,
+                                     @Value("${friend-request.retention.chunk-size:500}") int chunkSize,
+                                     @Value("${friend-request.retention.chunk-pause-ms:50}") long chunkPauseMillis,
+                                     @Value("${friend-request.retention.max-run-ms:60000}") long maxRunMillis) {
+        this.friendRequestRepository = friendRequestRepository;
+        this.expireAfter = Duration.ofDays(expireAfterDays);
+        this.archiveAfter = Duration.ofDays(archiveAfterDays);
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+        this.maxRunMillis = maxRunMillis;
+        this.expiredCounter = rowsCounter(meterRegistry, "expired");
+        this.archivedCounter = rowsCounter(meterRegistry, "archived");
+        lagGauge(meterRegistry, "expired", expireLagSeconds);
+        lagGauge(meterRegistry, "archived", archiveLagSeconds);
+    }
+
+    private static Counter rowsCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("friend.request.retention.rows")
+                .description("정리한 친구 요청 수")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    private static void lagGauge(MeterRegistry meterRegistry, String action, AtomicLong lagSeconds) {
+        Gauge.builder("friend.request.retention.lag", lagSeconds, AtomicLong::get)
+                .description("마지막 실행이 끝났을 때 남은 행 중 가장 오래된 행이 기준 시간을 넘긴 시간 (모두 처리했으면 0)")
+                .baseUnit("seconds")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${friend-request.retention.interval-ms:600000}",
+            initialDelayString = "${friend-request.retention.initial-delay-ms:60000}")
+    public void run() {
+        long deadline = System.currentTimeMillis() + maxRunMillis;
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. 만료를 먼저 처리해야, 이번에 만료된 행 중 보관 기준을 넘은 행도 바로 옮길 수 있습니다.
+        expireLagSeconds.set(process("expired", FriendRequestStatus.PENDING, now.minus(expireAfter), deadline,
+                ids -> friendRequestRepository.expirePending(ids, now), expiredCounter));
+
+        // 2. 상태별로 따로 훑어야 (status, requested_at, id) 인덱스를 정렬 없이 순서대로 읽을 수 있습니다.
+        long archiveLag = 0;
+        for (FriendRequestStatus status : ARCHIVABLE) {
+            archiveLag = Math.max(archiveLag, process("archived", status, now.minus(archiveAfter), deadline,
+                    ids -> friendRequestRepository.archive(ids, status, now), archivedCounter));
+        }
+        archiveLagSeconds.set(archiveLag);
+    }
+
+    /**
+     * status 상태이면서 before보다 이전에 요청된 행을 chunkSize씩 action으로 처리합니다.
+     *
+     * @return 제한 시간 안에 모두 처리했으면 0, 아니면 남은 행 중 가장 오래된 행이 before를 넘긴 초
+     */
+    private long process(String action, FriendRequestStatus status, LocalDateTime before, long deadline,
+                         ToIntFunction<List<Long>> apply, Counter counter) {
+        long startNanos = System.nanoTime();
+        RetentionCursor cursor = null;
+        long processed = 0;
+        long lagSeconds = 0;
+        while (true) {
+            List<RetentionCursor> chunk = friendRequestRepository.findRetentionChunk(status, before, cursor, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            if (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()) {
+                // 커서 순서가 요청 시간 순서이므로, 남은 첫 행이 가장 오래된 행입니다.
+                lagSeconds = Duration.between(chunk.get(0).requestedAt(), before).toSeconds();
+                break;
+            }
+
+            int changed = apply.applyAsInt(chunk.stream().map(RetentionCursor::id).toList());
+            counter.increment(changed);
+            processed += changed;
+            cursor = chunk.get(chunk.size() - 1);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            pause();
+        }
+
+        if (processed > 0 || lagSeconds > 0) {
+            double elapsedSeconds = Math.max((System.nanoTime() - startNanos) / 1e9, 0.001);
+            log.info("오래된 친구 요청을 정리했습니다. action={}, status={}, rows={}, rowsPerSec={}, lagSec={}",
+                    action, status, processed, Math.round(processed / elapsedSeconds), lagSeconds);
+        }
+        return lagSeconds;
+    }
+
+    private void pause() {
+        if (chunkPauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMillis);
+        } catch (InterruptedException e) {
+            // 종료 중이면 다음 묶음을 확인할 때 멈춥니다.
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,66 +1,307 @@
 package com.example.fcmspring.friends;
 
-import com.example.fcmspring.notification.NotificationService;
+import com.example.fcmspring._core.logging.LogSampler;
+import com.example.fcmspring._core.metrics.TransactionTimer;
+import com.example.fcmspring.notification.NotificationOutbox;
+import com.example.fcmspring.notification.NotificationOutboxRepository;
 import com.example.fcmspring.users.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 /**
  * 친구 요청과 관련된 핵심 비즈니스 로직을 처리하는 서비스 클래스입니다.
  * 컨트롤러로부터 요청을 받아 DB 저장 및 알림 전송을 총괄합니다.
  */
+@Slf4j
 @Service
 public class FriendRequestService {
 
+    // 목록 조회 한 번에 돌려줄 수 있는 최대 개수
+    static final int MAX_PAGE_SIZE = 1000;
+    // 대량 친구 요청 한 번에 받을 수 있는 최대 수신자 수
+    static final int MAX_BULK_SIZE = 5000;
+    // 대량 저장 시 flush 주기. application.properties의 hibernate.jdbc.batch_size와 맞춥니다.
+    private static final int BULK_FLUSH_SIZE = 50;
+    // 받은 친구 요청함 한 페이지의 최대 개수
+    static final int MAX_INBOX_PAGE_SIZE = 100;
+    // 내보내기 시 드라이버가 한 번에 가져올 행 수
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    // 단건 저장 로그는 요청마다 남으므로 샘플링합니다.
+    private static final String SAVED_EVENT = "friend-request.saved";
+
     // 필요한 의존성들을 주입받습니다.
     private final FriendRequestRepository friendRequestRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutboxRepository notificationOutboxRepository;
     private final UserService userService;
+    private final FriendshipGraph friendshipGraph;
+    private final LogSampler logSampler;
+
+    // 트랜잭션 시간(커밋 포함)과 저장된 요청 수를 기록합니다.
+    private final TransactionTimer singleTransactionTimer;
+    private final TransactionTimer bulkTransactionTimer;
+    private final TransactionTimer respondTransactionTimer;
+    private final Counter createdCounter;
+    private final DistributionSummary bulkSizeSummary;
 
     public FriendRequestService(FriendRequestRepository friendRequestRepository,
-                                NotificationService notificationService,
-                                UserService userService) {
+                                NotificationOutboxRepository notificationOutboxRepository,
+                                UserService userService,
+                                FriendshipGraph friendshipGraph,
+                                LogSampler logSampler,
+                                MeterRegistry meterRegistry) {
         this.friendRequestRepository = friendRequestRepository;
-        this.notificationService = notificationService;
+        this.notificationOutboxRepository = notificationOutboxRepository;
         this.userService = userService;
+        this.friendshipGraph = friendshipGraph;
+        this.logSampler = logSampler;
+        this.singleTransactionTimer = new TransactionTimer(meterRegistry, "friend.request.transaction",
+                "친구 요청 저장 트랜잭션 시간 (커밋 포함)", "single");
+        this.bulkTransactionTimer = new TransactionTimer(meterRegistry, "friend.request.transaction",
+                "친구 요청 저장 트랜잭션 시간 (커밋 포함)", "bulk");
+        this.respondTransactionTimer = new TransactionTimer(meterRegistry, "friend.request.transaction",
+                "친구 요청 저장 트랜잭션 시간 (커밋 포함)", "respond");
+        this.createdCounter = Counter.builder("friend.request.created")
+                .description("저장된 친구 요청 수")
+                .register(meterRegistry);
+        this.bulkSizeSummary = DistributionSummary.builder("friend.request.bulk.size")
+                .description("대량 친구 요청 한 번에 저장된 요청 수")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
      * 친구 요청을 보내는 전체 프로세스를 처리합니다.
      *
-     * @param requesterId 요청을 보낸 사용자의 ID
-     * @param recipientId 요청을 받을 사용자의 ID
+     * 같은 멱등성 키나 같은 대기 중 요청이 이미 있으면 DB 유니크 제약 위반(DataIntegrityViolationException)이 발생합니다.
+     * 중복 처리는 IdempotentFriendRequestSender가 담당합니다.
+     *
+     * @param requesterId    요청을 보낸 사용자의 ID
+     * @param recipientId    요청을 받을 사용자의 ID
+     * @param idempotencyKey 클라이언트가 보낸 멱등성 키 (없으면 null)
      * @return DB에 저장된 새로운 FriendRequest 객체
      */
     // @Transactional: 이 메소드 내에서 수행되는 모든 DB 작업은 하나의 트랜잭션으로 묶입니다.
     // 만약 중간에 오류가 발생하면, 모든 작업이 롤백(취소)되어 데이터 일관성을 보장합니다.
     @Transactional
-    public FriendRequest sendFriendRequest(Long requesterId, Long recipientId) {
+    public FriendRequest sendFriendRequest(Long requesterId, Long recipientId, String idempotencyKey) {
+        singleTransactionTimer.start();
         // 1. 유효성 검증 (비즈니스 로직)
         // 자기 자신에게 친구 요청을 보낼 수 없습니다.
         if (requesterId.equals(recipientId)) {
             throw new IllegalArgumentException("자기 자신에게 친구 요청을 보낼 수 없습니다.");
         }
+        // 이미 친구인지는 메모리의 친구 관계 인덱스로 확인하므로 DB를 조회하지 않습니다.
+        if (friendshipGraph.areFriends(requesterId, recipientId)) {
+            throw new IllegalArgumentException("이미 친구인 사용자입니다.");
+        }
         // 요청을 받을 사용자가 실제로 존재하는지 확인합니다.
-        if (userService.findById(recipientId).isEmpty()) {
+        // 캐시를 거쳐 조회하므로, 이어서 알림을 보낼 때는 DB를 다시 조회하지 않습니다.
+        if (userService.findTokenView(recipientId).isEmpty()) {
             throw new IllegalArgumentException("요청을 받을 사용자가 존재하지 않습니다.");
         }
-        // TODO: 실제 서비스에서는 '이미 친구 관계인지', '이미 보낸 요청이 있는지' 등을 추가로 검증해야 합니다.
+        // '이미 보낸 요청이 있는지'는 pending_pair 유니크 제약으로 DB가 검증합니다.
 
         // 2. DB에 친구 요청 저장
         // 새로운 FriendRequest 엔티티를 생성합니다.
         FriendRequest friendRequest = new FriendRequest(requesterId, recipientId);
+        friendRequest.setIdempotencyKey(idempotencyKey);
         // JpaRepository의 save 메소드를 호출하여 DB에 저장합니다.
         FriendRequest savedRequest = friendRequestRepository.save(friendRequest);
-        System.out.println("친구 요청이 데이터베이스에 저장되었습니다. ID: " + savedRequest.getId());
+        if (logSampler.sample(SAVED_EVENT)) {
+            log.info("친구 요청이 데이터베이스에 저장되었습니다. id={} (sampled 1/{})", savedRequest.getId(), logSampler.intervalOf(SAVED_EVENT));
+        }
 
-        // 3. FCM을 통해 알림 전송 (비동기 처리 권장)
-        // NotificationService에 알림 전송을 위임합니다.
-        // *실제 서비스에서는 이 부분을 @Async 어노테이션 등을 사용하여 비동기적으로 처리하는 것이 좋습니다.
-        //  그래야 알림 전송이 지연되더라도 사용자에게 응답이 늦게 가는 것을 막을 수 있습니다.
-        notificationService.sendFriendRequestNotification(recipientId, requesterId);
+        // 3. 알림을 아웃박스 테이블에 기록합니다.
+        // 친구 요청과 같은 트랜잭션에서 저장되므로, 커밋되기 전에 알림이 먼저 나가거나
+        // JVM이 종료되어 알림이 사라지는 일이 없습니다. 실제 FCM 전송은 NotificationOutboxDrainer가 처리합니다.
+        notificationOutboxRepository.save(
+                NotificationOutbox.friendRequest(recipientId, requesterId, savedRequest.getId()));
 
         // 4. 처리 결과를 반환합니다.
+        createdCounter.increment();
         return savedRequest;
     }
+
+    /**
+     * 여러 사용자에게 한 번에 친구 요청을 보냅니다. (연락처 가져오기 등)
+     * 수신자 검증과 중복 확인은 IN 쿼리로 한 번에 처리하고, 저장은 JDBC 배치로 묶어서 보냅니다.
+     * 알림은 같은 트랜잭션에서 아웃박스에 함께 배치 저장되며, 드레이너가 sendEach로 묶어서 전송합니다.
+     *
+     * @param requesterId  요청을 보낸 사용자의 ID
+     * @param recipientIds 요청을 받을 사용자 ID 목록 (중복은 한 번만 처리합니다)
+     * @return 저장된 요청과 건너뛴 수신자 목록
+     */
+    @Transactional
+    public BulkSendResult sendFriendRequests(Long requesterId, List<Long> recipientIds) {
+        bulkTransactionTimer.start();
+        if (recipientIds.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("한 번에 보낼 수 있는 친구 요청은 최대 " + MAX_BULK_SIZE + "건입니다.");
+        }
+
+        // 1. 중복 ID를 제거하고, 이미 친구인 사용자는 DB 조회 전에 친구 관계 인덱스로 걸러냅니다.
+        Set<Long> distinctIds = new LinkedHashSet<>(recipientIds);
+        List<Long> friends = new ArrayList<>();
+        distinctIds.removeIf(recipientId -> {
+            boolean friend = friendshipGraph.areFriends(requesterId, recipientId);
+            if (friend) {
+                friends.add(recipientId);
+            }
+            return friend;
+        });
+
+        // 존재하지 않는 사용자와 자기 자신을 한 번의 조회로 걸러냅니다.
+        Set<Long> existingIds = userService.findExistingIds(distinctIds);
+        List<Long> invalid = new ArrayList<>();
+        Map<String, Long> candidates = new LinkedHashMap<>(); // pending_pair → 수신자 ID
+        for (Long recipientId : distinctIds) {
+            if (recipientId.equals(requesterId) || !existingIds.contains(recipientId)) {
+                invalid.add(recipientId);
+            } else {
+                candidates.put(FriendRequest.pendingPairOf(requesterId, recipientId), recipientId);
+            }
+        }
+
+        // 2. 이미 대기 중인 요청이 있는 수신자를 한 번의 조회로 걸러냅니다.
+        List<Long> duplicate = new ArrayList<>();
+        for (String pendingPair : friendRequestRepository.findPendingPairs(candidates.keySet())) {
+            duplicate.add(candidates.remove(pendingPair));
+        }
+
+        // 3. 친구 요청과 아웃박스 행을 저장합니다.
+        // hibernate.jdbc.batch_size마다 flush 하여 INSERT를 JDBC 배치로 보내고, 영속성 컨텍스트를 비워 메모리 사용을 일정하게 유지합니다.
+        List<Long> created = new ArrayList<>(candidates.size());
+        for (Long recipientId : candidates.values()) {
+            FriendRequest saved = friendRequestRepository.save(new FriendRequest(requesterId, recipientId));
+            notificationOutboxRepository.save(NotificationOutbox.friendRequest(recipientId, requesterId, saved.getId()));
+            created.add(saved.getId());
+            if (created.size() % BULK_FLUSH_SIZE == 0) {
+                friendRequestRepository.flushAndClear();
+            }
+        }
+        log.info("친구 요청 {}건이 데이터베이스에 저장되었습니다. requesterId={}", created.size(), requesterId);
+        createdCounter.increment(created.size());
+        bulkSizeSummary.record(created.size());
+        return new BulkSendResult(created, invalid, duplicate, friends);
+    }
+
+    /**
+     * 받은 친구 요청을 수락하거나 거절합니다.
+     * 상태 변경은 "대기 중일 때만 바꾸는" 조건부 UPDATE 한 문장으로 처리하므로 행을 잠그지 않습니다.
+     * 같은 버튼을 두 번 누르거나 여러 기기에서 동시에 눌러도 한 번만 반영되고, 알림도 한 번만 기록됩니다.
+     * 수락한 경우 요청을 보냈던 사용자에게 보낼 수락 알림을 같은 트랜잭션에서 아웃박스에 기록합니다.
+     *
+     * @param requestId   친구 요청 ID
+     * @param recipientId 요청을 받은 사용자의 ID
+     * @param decision    ACCEPTED 또는 REJECTED
+     * @return 처리 결과. 이미 같은 결정으로 처리된 요청이면 changed가 false입니다.
+     * @throws IllegalArgumentException 요청이 없거나 이 사용자가 받은 요청이 아닌 경우
+     * @throws IllegalStateException    이미 다른 결정으로 처리된 요청인 경우 (예: 거절된 요청을 수락)
+     */
+    @Transactional
+    public RespondResult respond(Long requestId, Long recipientId, FriendRequestStatus decision) {
+        if (decision == FriendRequestStatus.PENDING) {
+            throw new IllegalArgumentException("친구 요청은 수락 또는 거절만 할 수 있습니다.");
+        }
+        respondTransactionTimer.start();
+
+        // 1. 대기 중일 때만 상태를 바꿉니다. 바뀐 행이 없으면 이미 처리되었거나 없는 요청입니다.
+        int updated = friendRequestRepository.respond(requestId, recipientId, decision);
+
+        // 2. 요청을 다시 읽어 결과를 판단합니다. (UPDATE 이후에 읽으므로 바뀐 상태가 보입니다)
+        FriendRequest request = friendRequestRepository.findById(requestId)
+                .filter(found -> found.getRecipientId().equals(recipientId))
+                .orElseThrow(() -> new IllegalArgumentException("친구 요청을 찾을 수 없습니다: " + requestId));
+        if (updated == 0) {
+            if (request.getStatus() == decision) {
+                return new RespondResult(requestId, decision, false);
+            }
+            throw new IllegalStateException("이미 " + request.getStatus() + " 상태인 친구 요청입니다.");
+        }
+
+        // 3. 수락했으면 요청자에게 수락 알림을 보내도록 아웃박스에 기록하고, 커밋 후 친구 관계 인덱스에 추가합니다.
+        if (decision == FriendRequestStatus.ACCEPTED) {
+            notificationOutboxRepository.save(
+                    NotificationOutbox.friendRequestAccepted(request.getRequesterId(), recipientId, requestId));
+            friendshipGraph.addAfterCommit(request.getRequesterId(), recipientId);
+        }
+        return new RespondResult(requestId, decision, true);
+    }
+
+    /**
+     * 재시도되었거나 중복된 친구 요청이 가리키는 기존 요청의 ID를 조회합니다.
+     * 멱등성 키가 있으면 키로 먼저 찾고, 없으면 같은 요청자 → 수신자 사이의 대기 중인 요청을 찾습니다.
+     * 방금 다른 요청이 커밋한 행을 찾아야 하므로, 복제 지연이 있는 복제본이 아니라 primary에서 읽도록 readOnly를 붙이지 않습니다.
+     *
+     * @return 기존 요청의 ID를 담은 Optional. 없으면 빈 Optional을 반환합니다.
+     */
+    @Transactional
+    public Optional<Long> findExistingRequestId(Long requesterId, Long recipientId, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<Long> byKey = friendRequestRepository.findIdByIdempotencyKey(requesterId, idempotencyKey);
+            if (byKey.isPresent()) {
+                return byKey;
+            }
+        }
+        return friendRequestRepository.findPendingId(requesterId, recipientId);
+    }
+
+    /**
+     * 친구 요청 목록을 키셋 방식으로 한 페이지씩 조회합니다.
+     *
+     * @param afterId 이전 페이지의 마지막 ID (첫 페이지는 0)
+     * @param size    페이지 크기 (1 ~ MAX_PAGE_SIZE 사이로 보정됩니다)
+     * @return 조회된 페이지와 다음 페이지 커서
+     */
+    @Transactional(readOnly = true)
+    public FriendRequestPage findPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<FriendRequestView> items = friendRequestRepository.findPageAfter(afterId == null ? 0L : afterId, pageSize);
+        // 요청한 크기만큼 가득 찼을 때만 다음 페이지가 있을 수 있습니다.
+        Long nextAfter = items.size() == pageSize ? items.get(items.size() - 1).id() : null;
+        return new FriendRequestPage(items, nextAfter);
+    }
+
+    /**
+     * 모든 친구 요청을 한 행씩 읽으면서 consumer에 넘깁니다.
+     * 커서가 열려 있는 동안 트랜잭션을 유지해야 하므로, 행을 쓰는 작업까지 이 메소드 안에서 처리합니다.
+     *
+     * @param consumer 읽어온 행을 처리할 함수 (예: 응답 스트림에 한 줄씩 쓰기)
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<FriendRequestView> consumer) {
+        try (Stream<FriendRequestView> rows = friendRequestRepository.streamAll(EXPORT_FETCH_SIZE)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * 사용자가 받은 대기 중인 친구 요청을 최신순으로 한 페이지씩 조회합니다.
+     *
+     * @param recipientId 수신자 ID
+     * @param cursor      이전 응답의 nextCursor 값 (첫 페이지는 null)
+     * @param size        페이지 크기 (1 ~ MAX_INBOX_PAGE_SIZE 사이로 보정됩니다)
+     * @return 조회된 페이지와 다음 페이지 커서
+     */
+    @Transactional(readOnly = true)
+    public InboxPage findInbox(Long recipientId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_INBOX_PAGE_SIZE));
+        InboxCursor after = (cursor == null || cursor.isEmpty()) ? null : InboxCursor.decode(cursor);
+        List<InboxItem> items = friendRequestRepository.findInbox(recipientId, after, pageSize);
+        String nextCursor = items.size() == pageSize ? InboxCursor.of(items.get(items.size() - 1)).encode() : null;
+        return new InboxPage(items, nextCursor);
+    }
 }
@@ -5,9 +5,11 @@ package com.example.fcmspring.friends;
  * PENDING: 요청이 보내졌으나 아직 수락/거절되지 않은 대기 상태
  * ACCEPTED: 요청이 수락된 상태
  * REJECTED: 요청이 거절된 상태
+ * EXPIRED: 오랫동안 응답이 없어 만료된 상태 (FriendRequestRetentionJob이 바꿉니다)
  */
 public enum FriendRequestStatus {
     PENDING,
     ACCEPTED,
-    REJECTED
+    REJECTED,
+    EXPIRED
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.fcmspring.friends;
+
+import java.time.LocalDateTime;
+
+/**
+ * 목록 조회와 내보내기(export)에 사용하는 FriendRequest의 읽기 전용 DTO입니다.
+ * JPQL 생성자 표현식(SELECT new ...)으로 바로 만들어지므로 영속성 컨텍스트에 쌓이지 않아,
+ * 많은 행을 읽어도 메모리 사용량이 늘어나지 않습니다.
+ */
+public record FriendRequestView(Long id,
+                                Long requesterId,
+                                Long recipientId,
+                                FriendRequestStatus status,
+                                LocalDateTime requestedAt) {
+}
@@ -0,0 +1,46 @@
+package com.example.fcmspring.friends;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 친구 관계를 조회하는 API를 처리하는 컨트롤러입니다.
+ * 모든 응답은 메모리의 친구 관계 인덱스(FriendshipGraph)에서 만들어지므로 DB를 조회하지 않습니다.
+ */
+@RestController
+@RequestMapping("/api/friends")
+public class FriendshipController {
+
+    private final FriendshipGraph friendshipGraph;
+
+    public FriendshipController(FriendshipGraph friendshipGraph) {
+        this.friendshipGraph = friendshipGraph;
+    }
+
+    /**
+     * 사용자의 친구 ID 목록을 조회합니다. (최종 URL: GET /api/friends/{userId})
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<long[]> getFriends(@PathVariable long userId) {
+        return ResponseEntity.ok(friendshipGraph.friendsOf(userId));
+    }
+
+    /**
+     * 두 사용자가 친구인지 조회합니다. (최종 URL: GET /api/friends/{userId}/{otherId})
+     */
+    @GetMapping("/{userId}/{otherId}")
+    public ResponseEntity<Boolean> areFriends(@PathVariable long userId, @PathVariable long otherId) {
+        return ResponseEntity.ok(friendshipGraph.areFriends(userId, otherId));
+    }
+
+    /**
+     * 두 사용자가 함께 아는 친구 수를 조회합니다. (최종 URL: GET /api/friends/{userId}/{otherId}/mutual-count)
+     */
+    @GetMapping("/{userId}/{otherId}/mutual-count")
+    public ResponseEntity<Integer> getMutualFriendCount(@PathVariable long userId, @PathVariable long otherId) {
+        return ResponseEntity.ok(friendshipGraph.mutualFriendCount(userId, otherId));
+    }
+}
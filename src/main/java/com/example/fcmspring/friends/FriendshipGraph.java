@@ -0,0 +1,211 @@
+package com.example.fcmspring.friends;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 수락된(ACCEPTED) 친구 요청으로 만든 친구 관계 그래프입니다.
+ * 친구 관계는 별도 테이블 없이 friend_requests 행으로만 존재하므로, "A와 B가 친구인가", "친구 목록", "함께 아는 친구 수"를
+ * 매번 DB에서 찾으면 friend_requests를 훑어야 합니다. 대신 시작할 때 한 번 읽어 메모리에 인접 목록으로 들고 있습니다.
+ * <p>
+ * 사용자마다 친구 ID를 정렬된 long[]로 저장합니다. Long 객체를 담는 Set보다 항목당 메모리가 몇 배 작고,
+ * 친구 여부는 이진 탐색으로, 함께 아는 친구 수는 두 배열을 한 번씩 훑는 병합으로 구합니다.
+ * 배열은 바꾸지 않고 새로 만들어 교체하므로(copy-on-write) 읽는 쪽은 잠금 없이 읽습니다.
+ * 한 사용자의 친구 수는 많아야 수천 명이라 추가할 때 배열을 복사하는 비용은 작습니다.
+ * <p>
+ * 이 인덱스는 인스턴스마다 따로 가지고 있으며, 이 인스턴스에서 커밋된 수락만 바로 반영됩니다.
+ * 다른 인스턴스에서 수락된 관계는 재시작할 때 반영되므로, 그 사이에는 이미 친구인 사용자에게 요청이 저장될 수 있습니다. (지금까지와 같은 동작)
+ */
+@Slf4j
+@Component
+public class FriendshipGraph {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final FriendRequestRepository friendRequestRepository;
+    // 복제본이 늦게 따라오는 사이에 수락된 관계가 빠지면 재시작할 때까지 인덱스에 없으므로, 읽기 전용으로 표시하지 않고 primary에서 읽습니다.
+    private final TransactionTemplate primaryReadTransaction;
+    private final int loadFetchSize;
+
+    // 사용자 ID → 정렬된 친구 ID 배열
+    private final Map<Long, long[]> adjacency = new ConcurrentHashMap<>();
+    // 친구 관계(간선) 수. 한 관계는 양쪽 사용자 배열에 한 번씩 들어갑니다.
+    private final AtomicLong edgeCount = new AtomicLong();
+
+    public FriendshipGraph(FriendRequestRepository friendRequestRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${friend.graph.load-fetch-size:1000}") int loadFetchSize) {
+        this.friendRequestRepository = friendRequestRepository;
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+        this.loadFetchSize = loadFetchSize;
+        Gauge.builder("friend.graph.users", adjacency, Map::size)
+                .description("친구가 한 명 이상 있는 사용자 수")
+                .register(meterRegistry);
+        Gauge.builder("friend.graph.edges", edgeCount, AtomicLong::get)
+                .description("인덱스에 있는 친구 관계 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 수락된 친구 요청을 모두 읽어 인덱스를 만듭니다.
+     * 웹 서버가 요청을 받기 전에 끝나므로, 첫 요청부터 완성된 인덱스를 사용합니다.
+     * 사용자별로 배열을 늘려가며 모은 뒤 마지막에 한 번 정렬하고 중복을 제거합니다.
+     */
+    @PostConstruct
+    void load() {
+        long startNanos = System.nanoTime();
+        Map<Long, LongBuffer> buffers = new HashMap<>();
+        primaryReadTransaction.executeWithoutResult(status -> {
+            try (Stream<long[]> pairs = friendRequestRepository.streamAcceptedPairs(loadFetchSize)) {
+                pairs.forEach(pair -> {
+                    buffers.computeIfAbsent(pair[0], id -> new LongBuffer()).add(pair[1]);
+                    buffers.computeIfAbsent(pair[1], id -> new LongBuffer()).add(pair[0]);
+                });
+            }
+        });
+
+        long halfEdges = 0;
+        for (Map.Entry<Long, LongBuffer> entry : buffers.entrySet()) {
+            long[] friends = entry.getValue().toSortedDistinct();
+            adjacency.put(entry.getKey(), friends);
+            halfEdges += friends.length;
+        }
+        edgeCount.set(halfEdges / 2);
+        log.info("친구 관계 인덱스를 만들었습니다. users={}, edges={}, elapsedMs={}",
+                adjacency.size(), edgeCount.get(), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * 두 사용자가 친구인지 확인합니다.
+     */
+    public boolean areFriends(long userId, long otherId) {
+        return Arrays.binarySearch(adjacency.getOrDefault(userId, EMPTY), otherId) >= 0;
+    }
+
+    /**
+     * 사용자의 친구 ID 목록을 오름차순으로 반환합니다. 반환된 배열은 복사본이므로 바꿔도 인덱스에 영향이 없습니다.
+     */
+    public long[] friendsOf(long userId) {
+        return adjacency.getOrDefault(userId, EMPTY).clone();
+    }
+
+    /**
+     * 사용자의 친구 수를 반환합니다.
+     */
+    public int friendCount(long userId) {
+        return adjacency.getOrDefault(userId, EMPTY).length;
+    }
+
+    /**
+     * 두 사용자가 함께 아는 친구 수를 반환합니다.
+     * 두 정렬된 배열을 앞에서부터 한 번씩만 훑으므로 O(두 친구 수의 합)이며, 객체를 만들지 않습니다.
+     */
+    public int mutualFriendCount(long userId, long otherId) {
+        long[] a = adjacency.getOrDefault(userId, EMPTY);
+        long[] b = adjacency.getOrDefault(otherId, EMPTY);
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤에 두 사용자를 친구로 추가합니다.
+     * 롤백되면 추가하지 않으므로, 인덱스에는 DB에 커밋된 관계만 들어갑니다.
+     * 트랜잭션 밖에서 호출되면 즉시 추가합니다.
+     */
+    public void addAfterCommit(long userId, long otherId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(userId, otherId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(userId, otherId);
+            }
+        });
+    }
+
+    void add(long userId, long otherId) {
+        boolean added = insert(userId, otherId);
+        insert(otherId, userId);
+        if (added) {
+            edgeCount.incrementAndGet();
+        }
+    }
+
+    // compute 안에서 새 배열로 교체하므로 같은 사용자에 대한 동시 추가도 하나씩 반영됩니다.
+    private boolean insert(long userId, long friendId) {
+        boolean[] added = {false};
+        adjacency.compute(userId, (id, friends) -> {
+            long[] current = friends == null ? EMPTY : friends;
+            int index = Arrays.binarySearch(current, friendId);
+            if (index >= 0) {
+                return current;
+            }
+            int insertAt = -index - 1;
+            long[] next = new long[current.length + 1];
+            System.arraycopy(current, 0, next, 0, insertAt);
+            next[insertAt] = friendId;
+            System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+            added[0] = true;
+            return next;
+        });
+        return added[0];
+    }
+
+    /**
+     * 인덱스를 처음 만들 때 사용자별 친구 ID를 모으는 늘어나는 long 배열입니다.
+     */
+    private static final class LongBuffer {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedDistinct() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.fcmspring.friends;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 모바일 클라이언트의 재시도로 같은 친구 요청이 여러 번 들어와도
+ * DB 저장과 FCM 알림이 한 번만 일어나도록 보장하는 컴포넌트입니다.
+ * <p>
+ * 1. 최근에 처리한 (요청자, 멱등성 키) → 요청 ID를 메모리 캐시에 보관하여, 대부분의 재시도는 DB에 접근하지 않고 바로 응답합니다.
+ * 2. 캐시에 없으면(다른 인스턴스로 간 재시도, 캐시에서 밀려난 키 등) 그대로 저장을 시도하고,
+ *    DB 유니크 제약 위반이 나면 기존 요청을 찾아서 돌려줍니다. 최종적인 중복 방지는 DB가 보장합니다.
+ */
+@Component
+public class IdempotentFriendRequestSender {
+
+    private final FriendRequestService friendRequestService;
+    // "요청자ID:멱등성키" → 친구 요청 ID
+    private final Cache<String, Long> recentKeys;
+
+    public IdempotentFriendRequestSender(FriendRequestService friendRequestService,
+                                         @Value("${friend-request.idempotency.cache-size:100000}") long cacheSize,
+                                         @Value("${friend-request.idempotency.ttl-minutes:1440}") long ttlMinutes) {
+        this.friendRequestService = friendRequestService;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * 친구 요청 전송 결과입니다.
+     *
+     * @param requestId 친구 요청 ID (새로 저장된 요청 또는 기존 요청)
+     * @param created   이번 호출에서 새로 저장되었으면 true, 기존 요청을 돌려준 것이면 false
+     */
+    public record SendResult(Long requestId, boolean created) {
+    }
+
+    /**
+     * 친구 요청을 보냅니다. 같은 멱등성 키로 이미 보낸 요청이 있거나, 같은 사용자에게 대기 중인 요청이 이미 있으면
+     * 새로 저장하거나 알림을 보내지 않고 기존 요청의 ID를 돌려줍니다.
+     *
+     * @param requesterId    요청을 보낸 사용자의 ID
+     * @param recipientId    요청을 받을 사용자의 ID
+     * @param idempotencyKey 클라이언트가 보낸 멱등성 키 (없으면 null)
+     * @return 전송 결과
+     */
+    public SendResult send(Long requesterId, Long recipientId, String idempotencyKey) {
+        String cacheKey = idempotencyKey == null ? null : requesterId + ":" + idempotencyKey;
+        if (cacheKey != null) {
+            Long cachedId = recentKeys.getIfPresent(cacheKey);
+            if (cachedId != null) {
+                return new SendResult(cachedId, false);
+            }
+        }
+
+        try {
+            FriendRequest saved = friendRequestService.sendFriendRequest(requesterId, recipientId, idempotencyKey);
+            if (cacheKey != null) {
+                recentKeys.put(cacheKey, saved.getId());
+            }
+            return new SendResult(saved.getId(), true);
+        } catch (DataIntegrityViolationException e) {
+            // 유니크 제약 위반: 같은 키로 저장된 요청이나 대기 중인 요청이 이미 있습니다.
+            // 트랜잭션은 롤백되었으므로 아웃박스에도 알림이 추가되지 않았습니다.
+            Optional<Long> existingId = friendRequestService.findExistingRequestId(requesterId, recipientId, idempotencyKey);
+            if (existingId.isEmpty()) {
+                throw e;
+            }
+            if (cacheKey != null) {
+                recentKeys.put(cacheKey, existingId.get());
+            }
+            return new SendResult(existingId.get(), false);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.fcmspring.friends;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 받은 친구 요청함 페이징에 사용하는 커서입니다.
+ * 마지막으로 본 항목의 (요청 시간, ID)를 담고 있으며, 클라이언트에는 불투명한 문자열로 전달됩니다.
+ * 요청 시간이 같은 항목이 여러 개일 수 있으므로 ID를 함께 사용하여 순서를 확정합니다.
+ */
+record InboxCursor(LocalDateTime requestedAt, Long id) {
+
+    static InboxCursor of(InboxItem item) {
+        return new InboxCursor(item.requestedAt(), item.id());
+    }
+
+    String encode() {
+        String raw = requestedAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static InboxCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new InboxCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            // NumberFormatException은 IllegalArgumentException의 하위 클래스입니다.
+            throw new IllegalArgumentException("잘못된 커서 값입니다: " + cursor);
+        }
+    }
+}
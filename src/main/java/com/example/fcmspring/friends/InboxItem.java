@@ -0,0 +1,15 @@
+package com.example.fcmspring.friends;
+
+import java.time.LocalDateTime;
+
+/**
+ * 받은 친구 요청함(inbox) 목록의 한 항목을 나타내는 DTO입니다.
+ * 화면에 필요한 값만 조회하므로 FriendRequest 엔티티 전체를 읽는 것보다 가볍습니다.
+ *
+ * @param id                친구 요청 ID
+ * @param requesterId       요청을 보낸 사용자의 ID
+ * @param requesterUsername 요청을 보낸 사용자의 이름
+ * @param requestedAt       요청 시간
+ */
+public record InboxItem(Long id, Long requesterId, String requesterUsername, LocalDateTime requestedAt) {
+}
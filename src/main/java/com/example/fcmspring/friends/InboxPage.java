@@ -0,0 +1,12 @@
+package com.example.fcmspring.friends;
+
+import java.util.List;
+
+/**
+ * 받은 친구 요청함의 한 페이지입니다.
+ *
+ * @param items      이번 페이지의 항목 (최신 요청부터)
+ * @param nextCursor 다음 페이지를 요청할 때 cursor 파라미터로 넘길 값. 마지막 페이지이면 null입니다.
+ */
+public record InboxPage(List<InboxItem> items, String nextCursor) {
+}
@@ -0,0 +1,11 @@
+package com.example.fcmspring.friends;
+
+/**
+ * 친구 요청을 수락하거나 거절한 결과입니다.
+ *
+ * @param requestId 친구 요청 ID
+ * @param status    처리 후 요청의 상태 (ACCEPTED 또는 REJECTED)
+ * @param changed   이번 호출에서 상태가 바뀌었으면 true, 이미 같은 결정으로 처리된 요청이면 false (두 번 누른 경우 등)
+ */
+public record RespondResult(Long requestId, FriendRequestStatus status, boolean changed) {
+}
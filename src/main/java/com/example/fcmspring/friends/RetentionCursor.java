@@ -0,0 +1,11 @@
+package com.example.fcmspring.friends;
+
+import java.time.LocalDateTime;
+
+/**
+ * 오래된 친구 요청을 정리할 때 사용하는 키셋 커서입니다.
+ * 마지막으로 처리한 행의 (요청 시간, ID)를 담고 있으며, 다음 묶음은 이 위치 다음부터 읽습니다.
+ * 처리 중에 상태가 바뀌어 건너뛴 행을 다시 읽지 않으므로, 한 번의 실행이 같은 범위를 반복해서 훑지 않습니다.
+ */
+record RetentionCursor(LocalDateTime requestedAt, Long id) {
+}
@@ -0,0 +1,83 @@
+package com.example.fcmspring.notification;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 토픽 기반 전체 공지 API를 제공하는 컨트롤러입니다.
+ */
+@RestController
+@RequestMapping("/api/broadcasts")
+public class BroadcastController {
+
+    private final TopicBroadcastService topicBroadcastService;
+
+    public BroadcastController(TopicBroadcastService topicBroadcastService) {
+        this.topicBroadcastService = topicBroadcastService;
+    }
+
+    /**
+     * 등록된 모든 토큰을 토픽에 구독시키는 작업을 시작합니다. 작업은 백그라운드에서 진행되며 바로 202를 응답합니다.
+     */
+    @PostMapping("/topics/{topic}/subscriptions")
+    public ResponseEntity<?> subscribeAll(@PathVariable String topic) {
+        return startJob(topic, true);
+    }
+
+    /**
+     * 등록된 모든 토큰의 토픽 구독을 해지하는 작업을 시작합니다.
+     */
+    @DeleteMapping("/topics/{topic}/subscriptions")
+    public ResponseEntity<?> unsubscribeAll(@PathVariable String topic) {
+        return startJob(topic, false);
+    }
+
+    /**
+     * 구독 작업의 진행 상황(처리 수, 성공/실패 수, 초당 처리량)을 조회합니다.
+     */
+    @GetMapping("/subscription-jobs/{jobId}")
+    public ResponseEntity<TopicSubscriptionProgress> getJob(@PathVariable String jobId) {
+        return topicBroadcastService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 토픽을 구독한 모든 기기에 공지를 보냅니다.
+     * 요청 본문: {"title": "...", "body": "..."}
+     */
+    @PostMapping("/topics/{topic}")
+    public CompletableFuture<ResponseEntity<?>> broadcast(@PathVariable String topic,
+                                                          @RequestBody Map<String, String> payload) {
+        String title = payload.get("title");
+        String body = payload.get("body");
+        if (title == null || body == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("title과 body가 필요합니다."));
+        }
+        try {
+            return topicBroadcastService.broadcast(topic, title, body).thenApply(outcome -> outcome.isSuccessful()
+                    ? ResponseEntity.ok(Map.of("messageId", outcome.messageId()))
+                    : ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("공지 전송 실패 (" + outcome.errorCode() + "): " + outcome.errorMessage()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> startJob(String topic, boolean subscribe) {
+        try {
+            return ResponseEntity.accepted().body(topicBroadcastService.startSubscriptionJob(topic, subscribe));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.fcmspring.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 시작할 때 한 번 파싱해 둔 알림 문구 템플릿입니다. (예: "{0} 님 외 {1}명이 친구 요청을 보냈습니다.")
+ * 고정 문자열 조각과 인자 위치를 배열로 들고 있어서, 전송할 때는 파싱 없이 필요한 길이의 StringBuilder 하나로 문구를 만듭니다.
+ */
+public final class CompiledTemplate {
+
+    // int로 안전하게 읽을 수 있는 인자 번호의 최대 자릿수. 이보다 긴 숫자는 인자로 보지 않고 글자 그대로 둡니다.
+    private static final int MAX_INDEX_DIGITS = 9;
+
+    // 템플릿 키. loc-key 모드에서는 FCM의 title_loc_key/body_loc_key로 그대로 보냅니다.
+    private final String key;
+    private final String pattern;
+    // 인자 사이의 고정 문자열 조각 (인자 자리 수 + 1개)
+    private final String[] literals;
+    // 각 자리에 들어갈 인자 번호
+    private final int[] argIndex;
+    private final int literalLength;
+
+    private CompiledTemplate(String key, String pattern, String[] literals, int[] argIndex) {
+        this.key = key;
+        this.pattern = pattern;
+        this.literals = literals;
+        this.argIndex = argIndex;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * 문구를 파싱합니다. {숫자} 형태만 인자로 보고, 그 외의 중괄호는 글자 그대로 둡니다.
+     * ("{", "{}", "{12a}"처럼 짝이 안 맞거나 숫자가 아닌 경우, 숫자가 너무 길어 int로 읽을 수 없는 경우 포함)
+     */
+    public static CompiledTemplate compile(String key, String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> args = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            int close = pattern.charAt(i) == '{' ? pattern.indexOf('}', i) : -1;
+            if (close > i + 1 && close - i - 1 <= MAX_INDEX_DIGITS
+                    && pattern.substring(i + 1, close).chars().allMatch(Character::isDigit)) {
+                literals.add(pattern.substring(literalStart, i));
+                args.add(Integer.parseInt(pattern.substring(i + 1, close)));
+                literalStart = close + 1;
+                i = close + 1;
+            } else {
+                i++;
+            }
+        }
+        literals.add(pattern.substring(literalStart));
+        return new CompiledTemplate(key, pattern, literals.toArray(String[]::new),
+                args.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * 인자를 채워 문구를 만듭니다. 인자가 없는 템플릿은 원래 문구를 그대로 돌려주므로 새 문자열을 만들지 않습니다.
+     * 넘긴 인자가 모자라면 MessageFormat처럼 그 자리를 "{n}" 그대로 남깁니다. (번역 문구에 인자가 더 있어도 전송이 실패하지 않도록)
+     */
+    public String render(String... args) {
+        if (argIndex.length == 0) {
+            return pattern;
+        }
+        int length = literalLength;
+        for (String arg : args) {
+            length += arg.length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < argIndex.length; i++) {
+            sb.append(literals[i]);
+            int index = argIndex[i];
+            if (index < args.length) {
+                sb.append(args[index]);
+            } else {
+                sb.append('{').append(index).append('}');
+            }
+        }
+        return sb.append(literals[argIndex.length]).toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.fcmspring.notification;
+
+import com.example.fcmspring.users.DeviceTokenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FCM이 "더 이상 유효하지 않다"고 응답한 토큰을 모아두었다가, 주기적으로 한 번에 DB에서 지우는 컴포넌트입니다.
+ * 기기 토큰 목록(device_tokens)과 사용자 정보(users.fcm_token) 양쪽에서 지웁니다.
+ * 전송 경로에서는 토큰을 집합에 넣기만 하므로 전송 스레드가 DB 작업을 기다리지 않습니다.
+ * 지워진 토큰은 다음 알림부터 "토큰 없음"으로 처리되어 FCM을 다시 호출하지 않습니다.
+ */
+@Slf4j
+@Component
+public class DeadTokenPruner {
+
+    private final DeviceTokenService deviceTokenService;
+    private final int batchSize;
+    private final Counter prunedCounter;
+
+    // 지울 토큰 목록. 같은 토큰이 여러 번 보고되어도 한 번만 지우도록 집합을 사용합니다.
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public DeadTokenPruner(DeviceTokenService deviceTokenService,
+                           MeterRegistry meterRegistry,
+                           @Value("${notification.dead-token.batch-size:500}") int batchSize) {
+        this.deviceTokenService = deviceTokenService;
+        this.batchSize = batchSize;
+        this.prunedCounter = Counter.builder("fcm.tokens.pruned")
+                .description("더 이상 유효하지 않아 DB에서 지운 FCM 토큰 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 유효하지 않은 토큰을 보고합니다. 실제 삭제는 다음 flush에서 처리됩니다.
+     */
+    public void report(String fcmToken) {
+        if (fcmToken != null && !fcmToken.isEmpty()) {
+            pending.add(fcmToken);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dead-token.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : pending) {
+            if (pending.remove(token)) {
+                tokens.add(token);
+            }
+        }
+        for (int from = 0; from < tokens.size(); from += batchSize) {
+            List<String> chunk = tokens.subList(from, Math.min(from + batchSize, tokens.size()));
+            try {
+                int cleared = deviceTokenService.removeTokens(chunk);
+                prunedCounter.increment(cleared);
+            } catch (RuntimeException e) {
+                // 실패한 토큰은 다시 넣어 다음 실행에서 재시도합니다.
+                pending.addAll(chunk);
+                log.error("유효하지 않은 FCM 토큰 정리 중 에러 발생. tokens={}", chunk.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.fcmspring.notification;
+
+/**
+ * 알림 한 건을 처리한 최종 결과입니다.
+ * SENT: FCM 전송에 성공함
+ * SKIPPED: 사용자나 유효한 FCM 토큰이 없어 보낼 대상이 없음 (다시 시도해도 결과가 같음)
+ * FAILED: 전송에 실패함 (다시 시도할 수 있음)
+ * DEAD_LETTERED: 일시적인 오류로 재시도를 모두 소진하여 데드 레터로 기록됨 (더 이상 시도하지 않음)
+ * REJECTED: FCM이 토큰 외의 이유로 거절함 (인증 설정 오류 등. 다시 보내도 결과가 같으므로 더 이상 시도하지 않음)
+ */
+public enum DeliveryStatus {
+    SENT,
+    SKIPPED,
+    FAILED,
+    DEAD_LETTERED,
+    REJECTED
+}
@@ -0,0 +1,374 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FCM 메시지를 모아서 sendEach 한 번으로 전송하는 배치 디스패처입니다.
+ * 메시지마다 HTTP 요청을 한 번씩 보내는 대신, 최대 500건(FCM의 sendEach 한도)까지
+ * 짧은 대기 시간(linger) 동안 모아서 한 번에 전송하여 왕복 횟수를 줄입니다.
+ * <p>
+ * 메시지는 우선순위 레인(NotificationLane)별로 따로 큐에 쌓이고, 레인마다 동시에 응답을 기다리는 배치 수를 따로 제한합니다. (fcm.lane.*.max-in-flight)
+ * 공지 같은 대량 전송이 큐를 채우거나 전송 한도를 다 써도, 친구 요청 같은 HIGH 레인 알림은 자기 큐와 한도로 바로 나갑니다.
+ * 배치를 모으는 스레드는 메시지가 있고 전송 한도가 남은 레인 중에서 가중치(fcm.lane.*.weight)에 비례해 다음 레인을 고르며(smooth weighted round-robin),
+ * 한 배치에는 한 레인의 메시지만 담습니다. 한도에 닿은 레인은 건너뛰므로 한 레인이 막혀도 다른 레인은 기다리지 않습니다.
+ * 속도 제한(FcmRateLimiter) 허가도 기다리지 않고 남은 양만 확인하여, 한 배치를 바로 보낼 만큼 허가가 남은 레인만 고릅니다.
+ * 그래서 대량 배치가 허가를 기다리는 동안 배치를 모으는 스레드가 멈추지 않고, 그 사이 HIGH 레인 메시지는 먼저 나갑니다.
+ * <p>
+ * 레인의 큐가 가득 차면 submit이 RejectedExecutionException으로 바로 실패하여 메모리가 끝없이 늘어나지 않습니다.
+ * 아웃박스 드레이너는 remainingCapacity(lane)를 보고 큐에 들어갈 수 있는 만큼만 행을 가져가므로, 평소에는 거절까지 가지 않습니다.
+ * 메시지가 큐에 들어온 뒤 FCM을 호출하기 직전까지 기다린 시간은 레인별로 fcm.lane.queue.wait에 기록합니다.
+ */
+@Component
+public class FcmBatchDispatcher {
+
+    // FCM sendEach가 한 번에 받을 수 있는 최대 메시지 수입니다.
+    static final int FCM_MAX_BATCH_SIZE = 500;
+    // 깨우는 신호가 없어도 레인을 다시 살펴보는 최대 간격
+    private static final long MAX_IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MessagingGateway messagingGateway;
+    private final FcmRateLimiter fcmRateLimiter;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+
+    // 레인별 큐와 전송 한도
+    private final Map<NotificationLane, Lane> lanes = new EnumMap<>(NotificationLane.class);
+    // 메시지가 들어오거나 배치 응답이 돌아와 배치를 모으는 스레드가 다시 레인을 살펴봐야 할 때 깨우는 신호
+    private final Semaphore wakeup = new Semaphore(0);
+    // 보낼 수 있는 레인이 없을 때 다시 살펴보기까지 기다리는 시간. 배치를 모으는 스레드만 읽고 씁니다.
+    private long idleWaitNanos = MAX_IDLE_WAIT_NANOS;
+
+    // 배치 크기와 실제로 기다린 시간을 히스토그램으로 기록하여 튜닝에 사용합니다.
+    private final DistributionSummary batchSizeSummary;
+    private final Timer lingerTimer;
+    // FCM 호출(sendEach) 한 번에 걸린 시간입니다. 배치 크기가 클수록 길어지므로 fcm.batch.size와 함께 봅니다.
+    private final Timer sendTimer;
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    public FcmBatchDispatcher(MessagingGateway messagingGateway,
+                              FcmRateLimiter fcmRateLimiter,
+                              MeterRegistry meterRegistry,
+                              @Value("${fcm.batch.max-size:500}") int maxBatchSize,
+                              @Value("${fcm.batch.linger-ms:20}") long lingerMillis,
+                              @Value("${fcm.lane.high.max-in-flight:6}") int highMaxInFlight,
+                              @Value("${fcm.lane.high.queue-capacity:20000}") int highQueueCapacity,
+                              @Value("${fcm.lane.high.weight:4}") int highWeight,
+                              @Value("${fcm.lane.bulk.max-in-flight:2}") int bulkMaxInFlight,
+                              @Value("${fcm.lane.bulk.queue-capacity:5000}") int bulkQueueCapacity,
+                              @Value("${fcm.lane.bulk.weight:1}") int bulkWeight) {
+        if (maxBatchSize < 1 || maxBatchSize > FCM_MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("fcm.batch.max-size는 1 이상 " + FCM_MAX_BATCH_SIZE + " 이하여야 합니다: " + maxBatchSize);
+        }
+        this.messagingGateway = messagingGateway;
+        this.fcmRateLimiter = fcmRateLimiter;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        lanes.put(NotificationLane.HIGH, new Lane(NotificationLane.HIGH, highQueueCapacity, highMaxInFlight, highWeight, meterRegistry));
+        lanes.put(NotificationLane.BULK, new Lane(NotificationLane.BULK, bulkQueueCapacity, bulkMaxInFlight, bulkWeight, meterRegistry));
+        this.batchSizeSummary = DistributionSummary.builder("fcm.batch.size")
+                .description("sendEach 한 번에 전송된 메시지 수")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lingerTimer = Timer.builder("fcm.batch.linger")
+                .description("배치의 첫 메시지가 큐에 들어온 뒤 전송되기까지 걸린 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("fcm.send.latency")
+                .description("FCM sendEach 호출 한 번의 응답을 받기까지 걸린 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메시지를 레인의 전송 큐에 넣습니다. 실제 전송은 백그라운드 스레드가 배치로 처리합니다.
+     *
+     * @param message 전송할 FCM 메시지
+     * @param lane    메시지를 보낼 우선순위 레인
+     * @return 이 메시지의 전송 결과로 완료되는 Future. 큐가 가득 찼으면 RejectedExecutionException으로 완료됩니다.
+     */
+    public CompletableFuture<SendOutcome> submit(Message message, NotificationLane lane) {
+        PendingSend pending = new PendingSend(message, System.nanoTime(), new CompletableFuture<>());
+        if (!running) {
+            pending.result().completeExceptionally(new IllegalStateException("FCM 배치 디스패처가 실행 중이 아닙니다."));
+            return pending.result();
+        }
+        Lane target = lanes.get(lane);
+        if (!target.queue.offer(pending)) {
+            target.rejectedCounter.increment();
+            pending.result().completeExceptionally(new RejectedExecutionException("FCM 전송 큐가 가득 찼습니다. lane=" + lane));
+            return pending.result();
+        }
+        wakeup.release();
+        return pending.result();
+    }
+
+    /**
+     * 지금 레인의 큐에 더 넣을 수 있는 메시지 수입니다. 생산자가 이 값을 보고 보낼 양을 조절합니다.
+     */
+    public int remainingCapacity(NotificationLane lane) {
+        return lanes.get(lane).queue.remainingCapacity();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = new Thread(this::runLoop, "fcm-batch-dispatcher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        // 종료 시점까지 남아있는 메시지는 버리지 않고 마지막으로 전송합니다. HIGH 레인부터 보냅니다.
+        for (Lane lane : lanes.values()) {
+            List<PendingSend> remaining = new ArrayList<>();
+            lane.queue.drainTo(remaining);
+            for (int from = 0; from < remaining.size(); from += maxBatchSize) {
+                // 종료 중에도 남은 메시지를 보내야 하므로 인터럽트와 상관없이 기다립니다. (FCM 호출에는 타임아웃이 있습니다)
+                List<PendingSend> batch = remaining.subList(from, Math.min(from + maxBatchSize, remaining.size()));
+                lane.inFlight.acquireUninterruptibly();
+                acquireRatePermits(batch.size());
+                flush(lane, batch);
+            }
+        }
+        // 응답을 기다리는 배치가 모두 끝날 때까지 기다립니다.
+        for (Lane lane : lanes.values()) {
+            if (lane.inFlight.tryAcquire(lane.maxInFlight, 10, TimeUnit.SECONDS)) {
+                lane.inFlight.release(lane.maxInFlight);
+            }
+        }
+    }
+
+    private void runLoop() {
+        List<PendingSend> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            Lane lane = nextLane();
+            if (lane == null) {
+                // 보낼 수 있는 레인이 없습니다. 새 메시지가 들어오거나, 배치 응답이 돌아오거나, 속도 제한 허가가 보충될 때까지 기다립니다.
+                try {
+                    wakeup.tryAcquire(idleWaitNanos, TimeUnit.NANOSECONDS);
+                    wakeup.drainPermits();
+                } catch (InterruptedException e) {
+                    return; // 종료 요청입니다.
+                }
+                continue;
+            }
+            try {
+                collectBatch(lane, batch, Math.min(maxBatchSize, fcmRateLimiter.availablePermits()));
+            } catch (InterruptedException e) {
+                // 종료 요청입니다. 이미 모은 메시지는 아래에서 전송하고 루프를 빠져나갑니다.
+                Thread.currentThread().interrupt();
+            }
+            // 레인을 고를 때 허가가 남아 있는 것을 확인했고 모은 메시지 수도 그 이하이므로 기다리지 않고 받습니다.
+            // (속도 제한기를 이 스레드만 쓰므로, 그 사이에 허가가 줄어들지 않습니다)
+            if (!batch.isEmpty() && !fcmRateLimiter.tryAcquire(batch.size())) {
+                acquireRatePermits(batch.size());
+            }
+            flush(lane, batch);
+            batch.clear();
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 보낼 수 있는 레인 중에서 다음에 보낼 레인을 고르고, 그 레인의 전송 허가를 하나 받아 둡니다.
+     * 보낼 수 있는 레인은 메시지가 있고, 동시 전송 한도가 남았고, 한 배치(쌓인 메시지 수와 최대 배치 크기 중 작은 쪽)를
+     * 기다리지 않고 보낼 만큼 속도 제한 허가가 남은 레인입니다. 허가가 모자란 레인은 기다리지 않고 건너뛰므로,
+     * 대량 배치가 허가 500개를 기다리는 동안에도 허가 몇 개면 되는 HIGH 레인 메시지는 먼저 나갑니다.
+     * <p>
+     * smooth weighted round-robin: 후보 레인마다 가중치만큼 점수를 더하고, 점수가 가장 높은 레인을 고른 뒤 후보 가중치의 합만큼 뺍니다.
+     * 두 레인이 모두 밀려 있으면 가중치 비율(기본 4:1)로 번갈아 고르고, 한 레인만 후보이면 그 레인을 계속 고릅니다.
+     * 허가를 받는 것은 이 스레드뿐이므로, 남은 허가를 확인한 뒤 받는 사이에 허가가 줄어들지 않습니다.
+     * 고를 레인이 없으면, 속도 제한 허가만 모자란 레인이 보낼 수 있게 될 때까지의 시간을 idleWaitNanos에 남깁니다.
+     *
+     * @return 고른 레인. 보낼 수 있는 레인이 없으면 null
+     */
+    private Lane nextLane() {
+        int ratePermits = fcmRateLimiter.availablePermits();
+        long rateWaitNanos = MAX_IDLE_WAIT_NANOS;
+        Lane selected = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes.values()) {
+            int queued = lane.queue.size();
+            if (queued == 0 || lane.inFlight.availablePermits() == 0) {
+                continue;
+            }
+            // 허가를 조금씩 받아 작은 배치를 여러 번 보내지 않도록, 한 배치 분량이 모일 때까지 기다립니다. (burst보다 많이 기다리지는 않습니다)
+            int needed = Math.min(Math.min(queued, maxBatchSize), fcmRateLimiter.maxBurst());
+            if (ratePermits < needed) {
+                rateWaitNanos = Math.min(rateWaitNanos, fcmRateLimiter.nanosUntilAvailable(needed));
+                continue;
+            }
+            lane.currentWeight += lane.weight;
+            totalWeight += lane.weight;
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        if (selected == null || !selected.inFlight.tryAcquire()) {
+            idleWaitNanos = Math.max(rateWaitNanos, 1);
+            return null;
+        }
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    /**
+     * 레인의 첫 메시지 기준으로 linger 시간이 지나거나 배치가 limit개 찰 때까지 그 레인의 메시지를 모읍니다.
+     * 레인은 큐에 메시지가 있을 때만 골라지고, 큐에서 꺼내는 것은 이 스레드뿐이므로 첫 메시지는 바로 꺼낼 수 있습니다.
+     *
+     * @param limit 이번 배치의 최대 크기 (최대 배치 크기와 지금 남은 속도 제한 허가 중 작은 쪽)
+     */
+    private void collectBatch(Lane lane, List<PendingSend> batch, int limit) throws InterruptedException {
+        PendingSend first = lane.queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = first.enqueuedAt() + lingerNanos;
+        while (batch.size() < limit) {
+            // 이미 쌓여있는 메시지는 기다리지 않고 한꺼번에 가져옵니다.
+            lane.queue.drainTo(batch, limit - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= limit || remaining <= 0) {
+                break;
+            }
+            PendingSend next = lane.queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    // 허가가 올 때까지 기다립니다. 배치를 모으는 스레드에서는 다른 곳에서 속도 제한기를 쓸 때만, 그 외에는 종료 중 남은 메시지를 보낼 때만 기다립니다.
+    private void acquireRatePermits(int permits) {
+        try {
+            fcmRateLimiter.acquire(permits);
+        } catch (InterruptedException e) {
+            // 종료 중입니다. 이미 모은 메시지는 기다리지 않고 전송합니다.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 한 레인의 배치를 전송합니다. 호출하는 쪽에서 그 레인의 전송 허가 하나와 메시지 수만큼의 속도 제한 허가를 받아 둔 상태여야 하며,
+     * 전송 허가는 응답이 돌아오면 반납합니다.
+     */
+    private void flush(Lane lane, List<PendingSend> batch) {
+        if (batch.isEmpty()) {
+            lane.inFlight.release();
+            return;
+        }
+        batchSizeSummary.record(batch.size());
+        lingerTimer.record(System.nanoTime() - batch.get(0).enqueuedAt(), TimeUnit.NANOSECONDS);
+
+        // flush가 끝난 뒤 batch 목록은 재사용되므로, 응답 콜백에서 쓸 Future를 따로 복사해 둡니다.
+        List<Message> messages = new ArrayList<>(batch.size());
+        List<CompletableFuture<SendOutcome>> results = new ArrayList<>(batch.size());
+        for (PendingSend pending : batch) {
+            messages.add(pending.message());
+            results.add(pending.result());
+        }
+
+        // 큐에 들어온 뒤 FCM을 호출하기 직전까지 기다린 시간입니다. (레인 선택, 전송 한도, 속도 제한 허가를 기다린 시간 포함)
+        long sendStart = System.nanoTime();
+        for (PendingSend pending : batch) {
+            lane.queueWaitTimer.record(sendStart - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        CompletableFuture<List<SendOutcome>> response;
+        try {
+            response = messagingGateway.sendEachAsync(messages);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((outcomes, ex) -> {
+            lane.inFlight.release();
+            wakeup.release();
+            sendTimer.record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS);
+            // 응답 목록은 요청한 메시지 목록과 순서가 같으므로, 인덱스로 원래 요청과 짝을 맞춥니다.
+            // 배치 전체가 실패한 경우(인증 오류 등)에는 게이트웨이가 모든 메시지에 같은 실패 결과를 채워서 돌려줍니다.
+            for (int i = 0; i < results.size(); i++) {
+                if (ex != null) {
+                    results.get(i).completeExceptionally(ex);
+                } else {
+                    results.get(i).complete(outcomes.get(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * 우선순위 레인 하나의 전송 큐와 동시 전송 한도입니다.
+     */
+    private static final class Lane {
+        private final BlockingQueue<PendingSend> queue;
+        // 응답을 기다리는 중인 이 레인의 배치 수를 제한하는 허가
+        private final Semaphore inFlight;
+        private final int maxInFlight;
+        private final int weight;
+        private final Timer queueWaitTimer;
+        private final Counter rejectedCounter;
+        // smooth weighted round-robin의 현재 점수. 배치를 모으는 스레드만 읽고 씁니다.
+        private int currentWeight;
+
+        Lane(NotificationLane lane, int queueCapacity, int maxInFlight, int weight, MeterRegistry meterRegistry) {
+            if (maxInFlight < 1 || weight < 1) {
+                throw new IllegalArgumentException("fcm.lane." + lane.name().toLowerCase()
+                        + ".max-in-flight와 weight는 1 이상이어야 합니다: " + maxInFlight + ", " + weight);
+            }
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+            this.inFlight = new Semaphore(maxInFlight);
+            this.maxInFlight = maxInFlight;
+            this.weight = weight;
+            String tag = lane.name().toLowerCase();
+            this.queueWaitTimer = Timer.builder("fcm.lane.queue.wait")
+                    .description("메시지가 레인의 큐에 들어온 뒤 전송되기까지 기다린 시간")
+                    .tag("lane", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.rejectedCounter = Counter.builder("fcm.batch.rejected")
+                    .description("전송 큐가 가득 차서 거절된 메시지 수")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("fcm.batch.queue.size", queue, BlockingQueue::size)
+                    .description("전송을 기다리는 메시지 수")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("fcm.batch.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                    .description("응답을 기다리는 중인 배치 수")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record PendingSend(Message message, long enqueuedAt, CompletableFuture<SendOutcome> result) {
+    }
+}
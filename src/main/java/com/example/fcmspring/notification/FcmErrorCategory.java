@@ -0,0 +1,33 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+
+/**
+ * FCM 전송 실패를 처리 방법에 따라 분류하는 열거형(Enum) 클래스입니다.
+ * DEAD_TOKEN: 토큰이 더 이상 유효하지 않음 (앱 삭제, 잘못된 토큰 등). 같은 토큰으로 다시 보내도 절대 성공하지 않습니다.
+ * TRANSIENT: 일시적인 오류 (FCM 서버 장애, 할당량 초과 등). 잠시 후 다시 보내면 성공할 수 있습니다.
+ * PERMANENT: 토큰 문제는 아니지만 다시 보내도 성공하지 않는 오류 (인증 설정 오류 등).
+ */
+public enum FcmErrorCategory {
+    DEAD_TOKEN,
+    TRANSIENT,
+    PERMANENT;
+
+    /**
+     * FCM 에러 코드를 분류합니다.
+     * 에러 코드가 없는 경우(네트워크 오류 등)는 일시적인 오류로 봅니다.
+     * <p>
+     * INVALID_ARGUMENT는 메시지 내용이 잘못된 경우에도 발생하지만, 이 서비스는 토큰 외의 값을 서버에서 직접 만들기 때문에
+     * 단일 토큰 메시지에서 이 코드가 오면 토큰 형식이 잘못된 것으로 보고 토큰을 정리합니다.
+     */
+    public static FcmErrorCategory of(MessagingErrorCode errorCode) {
+        if (errorCode == null) {
+            return TRANSIENT;
+        }
+        return switch (errorCode) {
+            case UNREGISTERED, INVALID_ARGUMENT, SENDER_ID_MISMATCH -> DEAD_TOKEN;
+            case UNAVAILABLE, INTERNAL, QUOTA_EXCEEDED -> TRANSIENT;
+            default -> PERMANENT; // THIRD_PARTY_AUTH_ERROR 등
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.fcmspring.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 모든 FCM 호출 앞에서 초당 전송량을 제한하는 토큰 버킷(token bucket) 방식의 속도 제한기입니다.
+ * 요청이 몰려 FCM 프로젝트 전체가 QUOTA_EXCEEDED로 차단되는 것을 막습니다.
+ * <p>
+ * 잠금(lock) 없이 AtomicLong 하나와 CAS만으로 동작합니다. (GCRA: Generic Cell Rate Algorithm)
+ * 버킷 상태를 "다음 허가가 정상적으로 나갈 시각(TAT)" 하나로 표현하며,
+ * 허가를 요청하면 그만큼 TAT를 미리 예약하고, 예약한 시각까지 기다려야 하는 시간만큼만 대기합니다.
+ * 따라서 요청이 거절되는 일은 없고, 순서대로 줄을 서서 기다리게 됩니다.
+ * <p>
+ * 빈으로 등록되는 인스턴스는 메시지 전송(limiter=send)을 제한합니다. 토픽 구독 관리처럼 FCM 할당량이 따로 있는 호출은
+ * 이름이 다른 인스턴스를 따로 만들어 씁니다. (지표는 limiter 태그로 구분합니다)
+ */
+@Component
+public class FcmRateLimiter {
+
+    // 허가 1개가 보충되는 간격(나노초)
+    private final long intervalNanos;
+    // 한꺼번에 나갈 수 있는 최대 허가 수(burst)에 해당하는 시간(나노초)
+    private final long burstNanos;
+    // 한꺼번에 받을 수 있는 최대 허가 수. 제한하지 않으면 Integer.MAX_VALUE입니다.
+    private final int maxBurst;
+    private final boolean enabled;
+
+    // 이론적 도착 시각(Theoretical Arrival Time). 버킷이 가득 찬 상태라면 현재 시각보다 과거입니다.
+    private final AtomicLong theoreticalArrival;
+
+    private final Counter permitCounter;
+    private final Timer waitTimer;
+
+    @Autowired
+    public FcmRateLimiter(MeterRegistry meterRegistry,
+                          @Value("${fcm.rate-limit.permits-per-second:1000}") double permitsPerSecond,
+                          @Value("${fcm.rate-limit.burst:1000}") int burst) {
+        this(meterRegistry, "send", permitsPerSecond, burst);
+    }
+
+    /**
+     * 전송 외의 FCM 호출(토픽 구독 관리 등)에 쓸 제한기를 만듭니다.
+     *
+     * @param name             지표의 limiter 태그 값
+     * @param permitsPerSecond 초당 허가 수. 0 이하이면 제한하지 않습니다.
+     * @param burst            한꺼번에 받을 수 있는 최대 허가 수
+     */
+    FcmRateLimiter(MeterRegistry meterRegistry, String name, double permitsPerSecond, int burst) {
+        this.enabled = permitsPerSecond > 0;
+        this.intervalNanos = enabled ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.burstNanos = intervalNanos * Math.max(burst, 1);
+        this.maxBurst = enabled ? Math.max(burst, 1) : Integer.MAX_VALUE;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        this.permitCounter = Counter.builder("fcm.ratelimit.permits")
+                .description("FCM 호출을 위해 발급한 허가 수 (메시지 1건 = 허가 1개)")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("fcm.ratelimit.wait")
+                .description("허가를 받기 위해 기다린 시간")
+                .tag("limiter", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 허가를 permits개 받습니다. 허가가 부족하면 받을 수 있을 때까지 현재 스레드가 기다립니다.
+     *
+     * @param permits 필요한 허가 수 (보낼 메시지 수)
+     * @throws InterruptedException 기다리는 도중 스레드가 인터럽트된 경우
+     */
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        permitCounter.increment(permits);
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * 기다리지 않아도 되면 허가를 permits개 받고 true를 반환합니다. 기다려야 하면 아무것도 받지 않고 false를 반환합니다.
+     * 한 스레드가 여러 종류의 요청을 번갈아 보내는 경우(배치 디스패처), 한 요청의 허가를 기다리느라 다른 요청까지 막히지 않도록 씁니다.
+     *
+     * @param permits 필요한 허가 수 (보낼 메시지 수)
+     */
+    public boolean tryAcquire(int permits) {
+        if (!enabled) {
+            permitCounter.increment(permits);
+            return true;
+        }
+        long cost = intervalNanos * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + cost;
+            if (next - burstNanos - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                permitCounter.increment(permits);
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 기다리지 않고 지금 바로 받을 수 있는 허가 수입니다. (최대 burst)
+     * 다른 스레드가 그 사이에 허가를 받을 수 있으므로, 허가를 받는 스레드가 하나일 때만 이 값만큼 tryAcquire가 성공한다고 볼 수 있습니다.
+     */
+    public int availablePermits() {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        long base = Math.max(theoreticalArrival.get(), now);
+        return (int) Math.min(maxBurst, Math.max(0, (now + burstNanos - base) / intervalNanos));
+    }
+
+    /**
+     * permits개를 기다리지 않고 받을 수 있게 될 때까지 남은 시간(나노초)입니다. 지금 받을 수 있으면 0입니다.
+     */
+    public long nanosUntilAvailable(int permits) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long base = Math.max(theoreticalArrival.get(), now);
+        return Math.max(0, base + intervalNanos * permits - burstNanos - now);
+    }
+
+    /**
+     * 한꺼번에 받을 수 있는 최대 허가 수입니다. 이보다 많은 허가는 tryAcquire로 한 번에 받을 수 없습니다.
+     */
+    public int maxBurst() {
+        return maxBurst;
+    }
+
+    /**
+     * 허가를 예약하고, 예약한 허가를 쓸 수 있을 때까지 기다려야 하는 시간을 반환합니다.
+     * 여러 스레드가 동시에 호출해도 CAS로 TAT를 갱신하므로 허가가 중복으로 나가지 않습니다.
+     */
+    long reserve(int permits) {
+        if (!enabled) {
+            return 0;
+        }
+        long cost = intervalNanos * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            // 버킷이 가득 찬 상태(TAT가 과거)라면 현재 시각부터 다시 계산합니다. 이보다 더 많이 쌓이지는 않습니다.
+            long base = Math.max(current, now);
+            long next = base + cost;
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                // burst 만큼은 미리 당겨서 쓸 수 있으므로, 그만큼을 뺀 시각까지만 기다리면 됩니다.
+                return Math.max(0, next - burstNanos - now);
+            }
+        }
+    }
+}
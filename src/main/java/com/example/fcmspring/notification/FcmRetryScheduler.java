@@ -0,0 +1,154 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일시적인 FCM 오류(UNAVAILABLE, INTERNAL, QUOTA_EXCEEDED 등)로 실패한 메시지를 다시 보내는 재시도 스케줄러입니다.
+ * <p>
+ * - 재시도 간격은 지수적으로 늘어나며(exponential backoff), 여러 메시지가 동시에 재시도되지 않도록 무작위 지터(jitter)를 섞습니다.
+ * - FCM 서버가 Retry-After 헤더를 보냈다면 그 시간보다 먼저 재시도하지 않습니다.
+ * - 대기는 지연 큐(ScheduledThreadPoolExecutor)에 작업을 등록하는 방식이므로, 기다리는 동안 어떤 스레드도 잠들어 있지 않습니다.
+ * - 최대 시도 횟수를 넘기거나 재시도 가능 시간(max-window)을 넘기면 데드 레터 테이블에 기록하고 포기합니다.
+ */
+@Slf4j
+@Component
+public class FcmRetryScheduler {
+
+    private final FcmBatchDispatcher fcmBatchDispatcher;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxWindowMillis;
+
+    // 재시도 시각까지 작업을 보관하는 지연 큐. 시각이 되면 메시지를 디스패처에 다시 넣기만 하므로 스레드 하나로 충분합니다.
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final Counter retryCounter;
+    private final Counter deadLetterCounter;
+
+    public FcmRetryScheduler(FcmBatchDispatcher fcmBatchDispatcher,
+                             NotificationDeadLetterRepository deadLetterRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${notification.retry.max-attempts:4}") int maxAttempts,
+                             @Value("${notification.retry.base-delay-ms:500}") long baseDelayMillis,
+                             @Value("${notification.retry.max-delay-ms:10000}") long maxDelayMillis,
+                             @Value("${notification.retry.max-window-ms:30000}") long maxWindowMillis) {
+        this.fcmBatchDispatcher = fcmBatchDispatcher;
+        this.deadLetterRepository = deadLetterRepository;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxWindowMillis = maxWindowMillis;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "fcm-retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 취소된 작업이 큐에 남아 메모리를 차지하지 않도록 합니다.
+        this.timer.setRemoveOnCancelPolicy(true);
+        // 재시도를 기다리는 작업 수는 executor.queued{name=fcm-retry-scheduler}로 확인합니다.
+        new ExecutorServiceMetrics(timer, "fcm-retry-scheduler", Tags.empty()).bindTo(meterRegistry);
+        this.retryCounter = Counter.builder("fcm.send.retries")
+                .description("일시적인 오류로 다시 전송을 예약한 횟수")
+                .register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("fcm.send.dead.letters")
+                .description("재시도를 모두 실패하여 데드 레터로 기록된 메시지 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메시지를 전송하고, 일시적인 오류로 실패하면 재시도합니다.
+     * 반환된 Future는 성공했거나, 재시도할 수 없는 오류로 실패했거나, 재시도를 모두 소진했을 때 완료됩니다.
+     * 재시도를 모두 소진한 메시지는 데드 레터로 기록된 상태이며, 이때 결과의 에러 분류는 TRANSIENT입니다.
+     *
+     * @param message 전송할 FCM 메시지
+     * @param target  데드 레터에 기록할 수신 정보
+     * @return 최종 전송 결과로 완료되는 Future (예외로 완료되지 않습니다)
+     */
+    public CompletableFuture<SendOutcome> send(Message message, NotificationTarget target) {
+        CompletableFuture<SendOutcome> result = new CompletableFuture<>();
+        attempt(message, target, 1, System.currentTimeMillis(), result);
+        return result;
+    }
+
+    private void attempt(Message message, NotificationTarget target, int attempt, long firstAttemptAt,
+                         CompletableFuture<SendOutcome> result) {
+        fcmBatchDispatcher.submit(message, target.type().lane()).whenComplete((outcome, ex) -> {
+            // 디스패처 큐가 가득 차서 거절된 경우도 에러 코드가 없는 일시적인 오류로 보고, 간격을 두고 다시 시도합니다.
+            SendOutcome current = ex != null ? SendOutcome.failure(null, ex.getMessage()) : outcome;
+            if (current.isSuccessful() || FcmErrorCategory.of(current.errorCode()) != FcmErrorCategory.TRANSIENT) {
+                result.complete(current);
+                return;
+            }
+
+            long delay = nextDelayMillis(attempt, current.retryAfter());
+            boolean outOfWindow = System.currentTimeMillis() + delay - firstAttemptAt > maxWindowMillis;
+            if (attempt >= maxAttempts || outOfWindow) {
+                deadLetter(target, current, attempt, result);
+                return;
+            }
+            try {
+                timer.schedule(() -> attempt(message, target, attempt + 1, firstAttemptAt, result), delay, TimeUnit.MILLISECONDS);
+                retryCounter.increment();
+            } catch (RejectedExecutionException e) {
+                // 애플리케이션 종료 중입니다. 마지막 결과를 그대로 돌려줍니다.
+                result.complete(current);
+            }
+        });
+    }
+
+    /**
+     * 다음 재시도까지 기다릴 시간을 계산합니다.
+     * base * 2^(attempt-1)을 max-delay로 제한한 값의 절반 ~ 전체 사이에서 무작위로 고르고(equal jitter),
+     * Retry-After가 있으면 그보다 짧게 기다리지 않습니다.
+     */
+    long nextDelayMillis(int attempt, Duration retryAfter) {
+        long exponential = baseDelayMillis << Math.min(attempt - 1, 20);
+        long capped = Math.min(maxDelayMillis, exponential);
+        long jittered = ThreadLocalRandom.current().nextLong(capped / 2, capped + 1);
+        if (retryAfter != null) {
+            return Math.max(jittered, retryAfter.toMillis());
+        }
+        return jittered;
+    }
+
+    private void deadLetter(NotificationTarget target, SendOutcome lastOutcome, int attempts,
+                            CompletableFuture<SendOutcome> result) {
+        deadLetterCounter.increment();
+        // 이 콜백은 디스패처 스레드에서 실행되므로, DB 저장은 타이머 스레드로 넘겨 전송 배치가 지연되지 않도록 합니다.
+        try {
+            timer.execute(() -> {
+                try {
+                    deadLetterRepository.save(new NotificationDeadLetter(target, lastOutcome, attempts));
+                } catch (RuntimeException e) {
+                    log.error("데드 레터 저장 중 에러 발생. recipientId={}", target.recipientId(), e);
+                } finally {
+                    result.complete(lastOutcome);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.complete(lastOutcome);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.fcmspring.notification;
+
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.SendResponse;
+import com.google.firebase.messaging.TopicManagementResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Firebase Admin SDK로 실제 FCM 서버에 전송하는 게이트웨이입니다.
+ * FirebaseMessaging은 처음 전송할 때 초기화되도록 ObjectProvider로 주입받습니다. (FirebaseConfig 참고)
+ */
+@Slf4j
+@Component
+@Profile("!simulator")
+public class FirebaseMessagingGateway implements MessagingGateway {
+
+    private final ObjectProvider<FirebaseMessaging> firebaseMessaging;
+
+    public FirebaseMessagingGateway(ObjectProvider<FirebaseMessaging> firebaseMessaging) {
+        this.firebaseMessaging = firebaseMessaging;
+    }
+
+    /**
+     * sendEachAsync의 ApiFuture에 콜백을 달아 CompletableFuture로 바꿉니다.
+     * 콜백은 Firebase SDK의 스레드에서 바로 실행되므로(directExecutor), 응답을 기다리는 스레드가 따로 없습니다.
+     */
+    @Override
+    public CompletableFuture<List<SendOutcome>> sendEachAsync(List<Message> messages) {
+        CompletableFuture<List<SendOutcome>> result = new CompletableFuture<>();
+        ApiFutures.addCallback(firebaseMessaging.getObject().sendEachAsync(messages), new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(BatchResponse response) {
+                List<SendOutcome> outcomes = new ArrayList<>(messages.size());
+                for (SendResponse sendResponse : response.getResponses()) {
+                    outcomes.add(SendOutcome.from(sendResponse));
+                }
+                result.complete(outcomes);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // 배치 전체가 실패한 경우(인증 오류, 네트워크 오류 등)에는 모든 메시지에 같은 실패 결과를 돌려줍니다.
+                SendOutcome failure = t instanceof FirebaseMessagingException e
+                        ? SendOutcome.failure(e)
+                        : SendOutcome.failure(null, t.getMessage());
+                result.complete(Collections.nCopies(messages.size(), failure));
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    @Override
+    public TopicManagementOutcome subscribeToTopic(List<String> tokens, String topic) {
+        try {
+            return toOutcome(firebaseMessaging.getObject().subscribeToTopic(tokens, topic));
+        } catch (FirebaseMessagingException e) {
+            log.warn("토픽 구독 요청 실패. topic={}, code={}", topic, e.getMessagingErrorCode(), e);
+            return TopicManagementOutcome.allFailed(tokens.size());
+        }
+    }
+
+    @Override
+    public TopicManagementOutcome unsubscribeFromTopic(List<String> tokens, String topic) {
+        try {
+            return toOutcome(firebaseMessaging.getObject().unsubscribeFromTopic(tokens, topic));
+        } catch (FirebaseMessagingException e) {
+            log.warn("토픽 구독 해지 요청 실패. topic={}, code={}", topic, e.getMessagingErrorCode(), e);
+            return TopicManagementOutcome.allFailed(tokens.size());
+        }
+    }
+
+    private static TopicManagementOutcome toOutcome(TopicManagementResponse response) {
+        List<TopicManagementOutcome.Failure> errors = new ArrayList<>(response.getErrors().size());
+        for (TopicManagementResponse.Error error : response.getErrors()) {
+            errors.add(new TopicManagementOutcome.Failure(error.getIndex(), error.getReason()));
+        }
+        return new TopicManagementOutcome(response.getSuccessCount(), response.getFailureCount(), errors);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.Message;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 푸시 메시지를 실제로 전송하는 통로입니다.
+ * 운영에서는 Firebase Admin SDK를 사용하고(FirebaseMessagingGateway),
+ * simulator 프로필에서는 자격 증명 없이 동작하는 시뮬레이터(SimulatedMessagingGateway)를 사용합니다.
+ * <p>
+ * 구현체는 예외를 던지지 않고 결과 값으로 실패를 돌려줍니다. 호출 전체가 실패한 경우에도 메시지마다 같은 실패 결과를 채웁니다.
+ * <p>
+ * 메시지 전송은 비동기입니다. 응답을 기다리는 동안 호출한 스레드를 붙잡지 않으므로, 디스패처는 여러 배치를 동시에 보낼 수 있습니다.
+ */
+public interface MessagingGateway {
+
+    /**
+     * 메시지 목록을 한 번에 전송합니다. (최대 500건)
+     *
+     * @return 요청한 메시지 목록과 같은 순서의 전송 결과로 완료되는 Future. 예외로 완료되지 않습니다.
+     */
+    CompletableFuture<List<SendOutcome>> sendEachAsync(List<Message> messages);
+
+    /**
+     * 토큰 목록을 토픽에 구독시킵니다. (최대 1000개)
+     */
+    TopicManagementOutcome subscribeToTopic(List<String> tokens, String topic);
+
+    /**
+     * 토큰 목록의 토픽 구독을 해지합니다. (최대 1000개)
+     */
+    TopicManagementOutcome unsubscribeFromTopic(List<String> tokens, String topic);
+}
@@ -0,0 +1,164 @@
+package com.example.fcmspring.notification;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 수신자에게 짧은 시간 안에 여러 알림이 몰릴 때, 하나의 요약 알림으로 합쳐 보내는 컴포넌트입니다.
+ * <p>
+ * - 수신자에게 열린 창(window)이 없으면 알림을 바로 보내고 창을 엽니다. 가끔 알림을 받는 사용자는 전혀 지연되지 않습니다.
+ * - 창이 열려 있는 동안 들어온 알림은 보내지 않고 모아둡니다.
+ * - 창이 닫힐 때 모아둔 알림이 있으면 요약 알림 한 건을 보내고 창을 다시 엽니다. 없으면 창을 닫습니다.
+ * <p>
+ * 모아둔 알림의 Future는 요약 알림이 전송된 뒤에 완료되므로, 그 전에 서버가 종료되면 아웃박스가 다시 전송합니다.
+ */
+@Component
+public class NotificationCoalescer {
+
+    /**
+     * 실제로 알림을 보내는 함수입니다.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        /**
+         * @param latestItem 가장 최근에 들어온 알림의 값 (예: 마지막 친구 요청자의 ID)
+         * @param totalCount 처음 창이 열린 뒤로 이 수신자에게 들어온 알림의 총 개수 (1이면 단건 알림)
+         */
+        CompletableFuture<DeliveryStatus> send(Long latestItem, int totalCount);
+    }
+
+    private final long windowMillis;
+    private final ScheduledThreadPoolExecutor timer;
+
+    // 수신자 ID → 열려 있는 창
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+
+    public NotificationCoalescer(MeterRegistry meterRegistry,
+                                 @Value("${notification.coalesce.window-ms:10000}") long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        new ExecutorServiceMetrics(timer, "notification-coalescer", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("notification.coalesce.windows", windows, Map::size)
+                .description("알림을 모으고 있는 수신자 수 (열려 있는 창의 수)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 알림을 보내거나, 이미 창이 열려 있으면 요약 알림에 합치도록 모아둡니다.
+     *
+     * @param recipientId 수신자 ID (창을 구분하는 키)
+     * @param item        알림의 값 (예: 친구 요청자의 ID)
+     * @param sender      알림을 실제로 보내는 함수
+     * @return 이 알림이 포함된 전송(단건 또는 요약)의 결과로 완료되는 Future
+     */
+    public CompletableFuture<DeliveryStatus> submit(Long recipientId, Long item, Sender sender) {
+        if (windowMillis <= 0) {
+            return sender.send(item, 1);
+        }
+        CompletableFuture<DeliveryStatus> waiter = new CompletableFuture<>();
+        boolean[] opened = {false};
+        windows.compute(recipientId, (key, window) -> {
+            if (window == null) {
+                opened[0] = true;
+                return openWindow(key, sender, 1);
+            }
+            window.add(item, waiter, sender);
+            return window;
+        });
+        if (opened[0]) {
+            return sender.send(item, 1);
+        }
+        return waiter;
+    }
+
+    private Window openWindow(Long recipientId, Sender sender, int totalCount) {
+        Window window = new Window(sender, totalCount);
+        try {
+            timer.schedule(() -> close(recipientId), windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 종료 중입니다. 창을 닫을 수 없으므로 모아둔 알림은 아웃박스 재전송에 맡깁니다.
+        }
+        return window;
+    }
+
+    /**
+     * 창을 닫습니다. 모아둔 알림이 있으면 요약 알림을 보내고 창을 다시 엽니다.
+     */
+    private void close(Long recipientId) {
+        Window[] flushed = {null};
+        windows.compute(recipientId, (key, window) -> {
+            if (window == null || window.isEmpty()) {
+                return null; // 창이 열린 동안 추가 알림이 없었으므로 창을 닫습니다.
+            }
+            flushed[0] = window;
+            return openWindow(key, window.sender, window.totalCount);
+        });
+        if (flushed[0] != null) {
+            flushed[0].flush();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 한 수신자에게 열려 있는 창입니다. 모든 변경은 ConcurrentHashMap.compute 안에서만 일어나므로 따로 잠그지 않습니다.
+     */
+    private static final class Window {
+        private Sender sender;
+        private int totalCount;
+        private Long latestItem;
+        private final List<CompletableFuture<DeliveryStatus>> waiters = new ArrayList<>();
+
+        private Window(Sender sender, int totalCount) {
+            this.sender = sender;
+            this.totalCount = totalCount;
+        }
+
+        private void add(Long item, CompletableFuture<DeliveryStatus> waiter, Sender sender) {
+            this.sender = sender;
+            this.latestItem = item;
+            this.totalCount++;
+            this.waiters.add(waiter);
+        }
+
+        private boolean isEmpty() {
+            return waiters.isEmpty();
+        }
+
+        private void flush() {
+            CompletableFuture<DeliveryStatus> sent;
+            try {
+                sent = sender.send(latestItem, totalCount);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+            }
+            sent.whenComplete((status, ex) -> {
+                DeliveryStatus result = ex != null ? DeliveryStatus.FAILED : status;
+                for (CompletableFuture<DeliveryStatus> waiter : waiters) {
+                    waiter.complete(result);
+                }
+            });
+        }
+    }
+}
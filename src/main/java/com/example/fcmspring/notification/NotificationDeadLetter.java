@@ -0,0 +1,55 @@
+package com.example.fcmspring.notification;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 일시적인 오류로 여러 번 재시도했지만 끝내 전송하지 못한 알림을 기록하는 데드 레터(Dead Letter) 엔티티입니다.
+ * 운영자가 원인을 확인하거나 나중에 다시 보내는 데 사용합니다.
+ */
+@Entity
+@Table(name = "notification_dead_letters")
+@Data
+@NoArgsConstructor
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    private Long recipientId;
+
+    @Column(name = "fcm_token")
+    private String fcmToken;
+
+    // 마지막 시도의 FCM 에러 코드 (코드가 없는 오류였으면 null)
+    private String errorCode;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    // 포기하기 전까지 시도한 횟수
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public NotificationDeadLetter(NotificationTarget target, SendOutcome lastOutcome, int attempts) {
+        this.type = target.type();
+        this.recipientId = target.recipientId();
+        this.fcmToken = target.fcmToken();
+        this.errorCode = lastOutcome.errorCode() == null ? null : lastOutcome.errorCode().name();
+        String message = lastOutcome.errorMessage();
+        this.errorMessage = message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+        this.attempts = attempts;
+        this.createdAt = LocalDateTime.now();
+    }
+}
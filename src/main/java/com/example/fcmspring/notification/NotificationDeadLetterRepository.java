@@ -0,0 +1,24 @@
+package com.example.fcmspring.notification;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * NotificationDeadLetter 엔티티를 EntityManager로 저장하는 리포지토리입니다.
+ */
+@Repository
+public class NotificationDeadLetterRepository {
+
+    private final EntityManager em;
+
+    public NotificationDeadLetterRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    @Transactional
+    public NotificationDeadLetter save(NotificationDeadLetter deadLetter) {
+        em.persist(deadLetter);
+        return deadLetter;
+    }
+}
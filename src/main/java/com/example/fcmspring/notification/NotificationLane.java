@@ -0,0 +1,42 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.AndroidConfig;
+
+/**
+ * 알림 전송 우선순위 레인입니다. 알림 종류(NotificationType)마다 하나의 레인에 속합니다.
+ * 레인마다 배치 디스패처의 큐와 동시 전송 한도가 따로 있어서, 대량 전송이 밀려 있어도 HIGH 레인 알림은 기다리지 않습니다.
+ * (큐 크기, 동시 전송 한도, 가중치, TTL은 fcm.lane.{레인 이름}.* 설정으로 정합니다)
+ *
+ * @see FcmBatchDispatcher
+ * @see NotificationLanes
+ */
+public enum NotificationLane {
+    // 사용자 사이의 상호작용 알림 (친구 요청, 수락). 기기를 바로 깨웁니다.
+    HIGH(AndroidConfig.Priority.HIGH, "10", null),
+    // 토픽 공지처럼 한꺼번에 많이 보내는 알림. 기기의 절전 상태를 존중하고, 여러 건이 쌓이면 마지막 것만 보이도록 합니다.
+    BULK(AndroidConfig.Priority.NORMAL, "5", "broadcast");
+
+    private final AndroidConfig.Priority androidPriority;
+    private final String apnsPriority;
+    private final String collapseKey;
+
+    NotificationLane(AndroidConfig.Priority androidPriority, String apnsPriority, String collapseKey) {
+        this.androidPriority = androidPriority;
+        this.apnsPriority = apnsPriority;
+        this.collapseKey = collapseKey;
+    }
+
+    public AndroidConfig.Priority androidPriority() {
+        return androidPriority;
+    }
+
+    // APNs 헤더 apns-priority 값 (10: 즉시 전달, 5: 기기 전원 상태에 맞춰 전달)
+    public String apnsPriority() {
+        return apnsPriority;
+    }
+
+    // 알림 종류에서 따로 정하지 않았을 때 쓰는 레인 기본 collapse key (없으면 null)
+    public String collapseKey() {
+        return collapseKey;
+    }
+}
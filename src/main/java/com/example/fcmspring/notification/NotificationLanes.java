@@ -0,0 +1,66 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.ApnsConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레인별 전송 설정(우선순위, TTL, collapse key)을 FCM 플랫폼 설정에 채워 줍니다.
+ * <p>
+ * TTL이 지난 알림은 FCM이 기기에 전달하지 않고 버립니다. 기기가 오래 꺼져 있다가 켜졌을 때
+ * 이미 의미가 없어진 공지가 한꺼번에 쏟아지지 않도록, 대량 레인은 TTL을 짧게 둡니다.
+ * Android는 상대 시간(ttl)을 받지만 APNs는 만료 시각(apns-expiration)을 받으므로 APNs 설정은 메시지마다 만듭니다.
+ */
+@Component
+public class NotificationLanes {
+
+    private final Map<NotificationLane, Long> ttlMillis = new EnumMap<>(NotificationLane.class);
+
+    public NotificationLanes(@Value("${fcm.lane.high.ttl-seconds:86400}") long highTtlSeconds,
+                             @Value("${fcm.lane.bulk.ttl-seconds:21600}") long bulkTtlSeconds) {
+        ttlMillis.put(NotificationLane.HIGH, TimeUnit.SECONDS.toMillis(highTtlSeconds));
+        ttlMillis.put(NotificationLane.BULK, TimeUnit.SECONDS.toMillis(bulkTtlSeconds));
+    }
+
+    public long ttlMillis(NotificationLane lane) {
+        return ttlMillis.get(lane);
+    }
+
+    /**
+     * 레인의 우선순위와 TTL을 채운 Android 설정입니다. 알림 내용(AndroidNotification)은 호출한 쪽에서 채웁니다.
+     *
+     * @param collapseKey 알림 종류의 collapse key. null이면 레인 기본값을 씁니다.
+     */
+    public AndroidConfig.Builder android(NotificationLane lane, String collapseKey) {
+        AndroidConfig.Builder builder = AndroidConfig.builder()
+                .setPriority(lane.androidPriority())
+                .setTtl(ttlMillis(lane));
+        String key = collapseKey != null ? collapseKey : lane.collapseKey();
+        if (key != null) {
+            builder.setCollapseKey(key);
+        }
+        return builder;
+    }
+
+    /**
+     * 레인의 우선순위와 만료 시각을 헤더로 채운 APNs 설정입니다. Aps는 호출한 쪽에서 채웁니다.
+     *
+     * @param collapseKey 알림 종류의 collapse key. null이면 레인 기본값을 씁니다.
+     */
+    public ApnsConfig.Builder apns(NotificationLane lane, String collapseKey) {
+        long expiresAt = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + ttlMillis(lane));
+        ApnsConfig.Builder builder = ApnsConfig.builder()
+                .putHeader("apns-priority", lane.apnsPriority())
+                .putHeader("apns-expiration", String.valueOf(expiresAt));
+        String key = collapseKey != null ? collapseKey : lane.collapseKey();
+        if (key != null) {
+            builder.putHeader("apns-collapse-id", key);
+        }
+        return builder;
+    }
+}
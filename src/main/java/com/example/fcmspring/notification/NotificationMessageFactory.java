@@ -0,0 +1,151 @@
+package com.example.fcmspring.notification;
+
+import com.example.fcmspring.users.UserTokenView;
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.ApsAlert;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.WebpushConfig;
+import com.google.firebase.messaging.WebpushNotification;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 알림 종류별로 토큰을 제외한 FCM 메시지 내용을 만듭니다. 토큰만 바꿔 가며 build할 수 있도록 Message.Builder를 돌려줍니다.
+ * <p>
+ * 문구는 NotificationTemplates에서 미리 파싱해 둔 템플릿으로 만들고, 내용이 바뀌지 않는 플랫폼 설정(collapse key 등)은
+ * 한 번만 만들어 재사용합니다. data에는 문구에 이미 들어 있는 값(사용자 이름)이나 수신 기기가 이미 아는 값(수신자 ID)을 넣지 않고,
+ * 앱이 화면을 이동하는 데 필요한 값만 넣습니다. 우선순위와 TTL은 알림 종류가 속한 레인(NotificationLane)을 따릅니다.
+ * <p>
+ * 클라이언트 계약: 이전 앱이 읽던 data 키(친구 요청: requesterUsername, recipientId, 항상 보내는 requestCount /
+ * 수락: accepterUsername, recipientId)는 이전 앱 호환을 위해 다음 릴리스까지 그대로 보냅니다. (putLegacyData 참고)
+ * 새 앱은 type과 requesterId/accepterId, 요약 알림의 requestCount만 읽고 문구의 사용자 이름은 notification에서 가져와야 합니다.
+ * 그다음 릴리스에서 이전 키를 빼면 requestCount는 2 이상일 때만 보냅니다. (없으면 1)
+ */
+@Component
+public class NotificationMessageFactory {
+
+    // 같은 수신자의 친구 요청 알림은 기기에서 하나만 보이도록 같은 collapse key를 씁니다.
+    // 요약 알림이 도착하면 앞서 받은 단건 알림을 대체합니다.
+    static final String FRIEND_REQUEST_COLLAPSE_KEY = "friend_request";
+
+    private final NotificationTemplates templates;
+    private final NotificationLanes lanes;
+    // 기기에 아직 표시 중인 이전 친구 요청 알림을 대체합니다. (Android: collapse key, iOS: apns-collapse-id)
+    // Android 설정은 바뀌지 않으므로 한 번만 만들고, APNs 설정은 만료 시각이 들어가므로 메시지마다 만듭니다.
+    private final AndroidConfig friendRequestAndroid;
+    private final AndroidConfig friendRequestAcceptedAndroid;
+
+    public NotificationMessageFactory(NotificationTemplates templates, NotificationLanes lanes) {
+        this.templates = templates;
+        this.lanes = lanes;
+        this.friendRequestAndroid = lanes.android(NotificationType.FRIEND_REQUEST.lane(), FRIEND_REQUEST_COLLAPSE_KEY).build();
+        this.friendRequestAcceptedAndroid = lanes.android(NotificationType.FRIEND_REQUEST_ACCEPTED.lane(), null).build();
+    }
+
+    /**
+     * 친구 요청 알림입니다. requestCount가 2 이상이면 여러 요청을 합친 요약 알림입니다.
+     *
+     * @param recipient         알림을 받을 사용자 (문구 언어를 정합니다)
+     * @param requesterId       가장 최근에 친구 요청을 보낸 사용자의 ID
+     * @param requesterUsername 가장 최근에 친구 요청을 보낸 사용자의 이름
+     * @param requestCount      이 알림이 대표하는 친구 요청 수
+     */
+    public Message.Builder friendRequest(UserTokenView recipient, Long requesterId, String requesterUsername, int requestCount) {
+        NotificationTemplates.LocalizedTemplates t = templates.forLocale(recipient.locale());
+        Message.Builder builder = Message.builder()
+                .putData("type", NotificationType.FRIEND_REQUEST.name())
+                .putData("requesterId", String.valueOf(requesterId))
+                // 요약 알림이 아니면 1입니다. 이전 앱이 항상 읽으므로 이전 키를 빼기 전까지는 단건 알림에도 보냅니다.
+                .putData("requestCount", String.valueOf(requestCount));
+        putLegacyData(builder, "requesterUsername", requesterUsername, recipient);
+
+        CompiledTemplate body = requestCount > 1 ? t.friendRequestSummaryBody() : t.friendRequestBody();
+        if (templates.mode() == NotificationTemplates.Mode.TEXT) {
+            String text = requestCount > 1
+                    ? body.render(requesterUsername, String.valueOf(requestCount - 1))
+                    : body.render(requesterUsername);
+            return builder
+                    .setNotification(Notification.builder()
+                            .setTitle(t.friendRequestTitle().render())
+                            .setBody(text)
+                            .build())
+                    .setAndroidConfig(friendRequestAndroid)
+                    .setApnsConfig(lanes.apns(NotificationType.FRIEND_REQUEST.lane(), FRIEND_REQUEST_COLLAPSE_KEY)
+                            .setAps(Aps.builder().build())
+                            .build());
+        }
+        List<String> args = requestCount > 1
+                ? List.of(requesterUsername, String.valueOf(requestCount - 1))
+                : List.of(requesterUsername);
+        return localized(builder, NotificationType.FRIEND_REQUEST.lane(), t.friendRequestTitle(), body, args, FRIEND_REQUEST_COLLAPSE_KEY);
+    }
+
+    /**
+     * 친구 요청 수락 알림입니다. 서로 다른 사람의 수락 알림이 서로를 대체하지 않도록 collapse key를 쓰지 않고, 레인의 우선순위와 TTL만 정합니다.
+     *
+     * @param recipient        알림을 받을 사용자 (친구 요청을 보냈던 사용자)
+     * @param accepterId       친구 요청을 수락한 사용자의 ID
+     * @param accepterUsername 친구 요청을 수락한 사용자의 이름
+     */
+    public Message.Builder friendRequestAccepted(UserTokenView recipient, Long accepterId, String accepterUsername) {
+        NotificationTemplates.LocalizedTemplates t = templates.forLocale(recipient.locale());
+        Message.Builder builder = Message.builder()
+                .putData("type", NotificationType.FRIEND_REQUEST_ACCEPTED.name())
+                .putData("accepterId", String.valueOf(accepterId));
+        putLegacyData(builder, "accepterUsername", accepterUsername, recipient);
+        NotificationLane lane = NotificationType.FRIEND_REQUEST_ACCEPTED.lane();
+        if (templates.mode() == NotificationTemplates.Mode.TEXT) {
+            return builder
+                    .setNotification(Notification.builder()
+                            .setTitle(t.friendRequestAcceptedTitle().render())
+                            .setBody(t.friendRequestAcceptedBody().render(accepterUsername))
+                            .build())
+                    .setAndroidConfig(friendRequestAcceptedAndroid)
+                    .setApnsConfig(lanes.apns(lane, null).setAps(Aps.builder().build()).build());
+        }
+        return localized(builder, lane, t.friendRequestAcceptedTitle(), t.friendRequestAcceptedBody(), List.of(accepterUsername), null);
+    }
+
+    /**
+     * 이전 앱이 읽던 data 키를 넣습니다. 모든 앱이 새 계약(클래스 설명 참고)으로 바뀐 다음 릴리스에서 이 메소드를 지웁니다.
+     */
+    private static void putLegacyData(Message.Builder builder, String usernameKey, String username, UserTokenView recipient) {
+        builder.putData(usernameKey, username)
+                .putData("recipientId", String.valueOf(recipient.id()));
+    }
+
+    /**
+     * 문구 대신 키와 인자를 보냅니다. Android와 iOS는 앱의 문자열 리소스로 기기 언어에 맞게 문구를 만듭니다.
+     * 웹 브라우저는 키를 해석하지 못하므로 웹푸시에만 수신자 언어로 만든 문구를 넣습니다. (FCM은 기기 플랫폼에 맞는 부분만 전달합니다)
+     */
+    private Message.Builder localized(Message.Builder builder, NotificationLane lane, CompiledTemplate title,
+                                      CompiledTemplate body, List<String> args, String collapseKey) {
+        AndroidConfig android = lanes.android(lane, collapseKey)
+                .setNotification(AndroidNotification.builder()
+                        .setTitleLocalizationKey(title.key())
+                        .setBodyLocalizationKey(body.key())
+                        .addAllBodyLocalizationArgs(args)
+                        .build())
+                .build();
+        ApnsConfig apns = lanes.apns(lane, collapseKey)
+                .setAps(Aps.builder()
+                        .setAlert(ApsAlert.builder()
+                                .setTitleLocalizationKey(title.key())
+                                .setLocalizationKey(body.key())
+                                .addAllLocalizationArgs(args)
+                                .build())
+                        .build())
+                .build();
+        return builder
+                .setAndroidConfig(android)
+                .setApnsConfig(apns)
+                .setWebpushConfig(WebpushConfig.builder()
+                        .setNotification(new WebpushNotification(title.render(), body.render(args.toArray(String[]::new))))
+                        .build());
+    }
+}
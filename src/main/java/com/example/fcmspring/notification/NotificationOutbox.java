@@ -0,0 +1,94 @@
+package com.example.fcmspring.notification;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 전송해야 할 알림을 DB에 기록하는 아웃박스(Outbox) 엔티티입니다.
+ * 친구 요청과 같은 트랜잭션 안에서 저장되므로, 요청이 커밋되면 알림도 반드시 남고
+ * 롤백되면 알림도 함께 사라집니다. 실제 전송은 NotificationOutboxDrainer가 나중에 처리합니다.
+ */
+@Entity
+@Table(name = "notification_outbox",
+        // 드레이너는 항상 'status = PENDING' 조건으로 id 순서대로 가져가므로 이 순서로 인덱스를 만듭니다.
+        indexes = @Index(name = "idx_notification_outbox_status_id", columnList = "status, id"))
+@Data
+@NoArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    // 친구 요청과 함께 대량으로 저장될 수 있으므로, JDBC 배치가 가능한 pooled 시퀀스를 사용합니다.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq_gen")
+    @SequenceGenerator(name = "notification_outbox_seq_gen", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // 알림의 종류
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    // 알림을 받을 사용자의 ID
+    @Column(nullable = false)
+    private Long recipientId;
+
+    // 알림을 발생시킨 사용자의 ID (친구 요청의 경우 요청자)
+    @Column(nullable = false)
+    private Long actorId;
+
+    // 알림의 원인이 된 데이터의 ID (친구 요청의 경우 FriendRequest의 ID)
+    private Long sourceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    // 지금까지 전송을 시도한 횟수
+    @Column(nullable = false)
+    private int attempts;
+
+    // 이 행을 가져간 드레이너 실행을 구분하기 위한 토큰
+    private String claimToken;
+
+    // 드레이너가 이 행을 가져간 시간. 오래된 PROCESSING 행을 다시 가져갈 때 사용합니다.
+    private LocalDateTime claimedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // 전송이 끝나(DONE/FAILED) 처리된 시간
+    private LocalDateTime processedAt;
+
+    public NotificationOutbox(NotificationType type, Long recipientId, Long actorId, Long sourceId) {
+        this.type = type;
+        this.recipientId = recipientId;
+        this.actorId = actorId;
+        this.sourceId = sourceId;
+        this.status = OutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * 친구 요청 알림을 위한 아웃박스 행을 생성합니다.
+     *
+     * @param recipientId     알림을 받을 사용자(친구 요청 수신자)의 ID
+     * @param requesterId     친구 요청을 보낸 사용자의 ID
+     * @param friendRequestId 저장된 FriendRequest의 ID
+     */
+    public static NotificationOutbox friendRequest(Long recipientId, Long requesterId, Long friendRequestId) {
+        return new NotificationOutbox(NotificationType.FRIEND_REQUEST, recipientId, requesterId, friendRequestId);
+    }
+
+    /**
+     * 친구 요청 수락 알림을 위한 아웃박스 행을 생성합니다.
+     *
+     * @param requesterId     알림을 받을 사용자(친구 요청을 보냈던 사용자)의 ID
+     * @param accepterId      친구 요청을 수락한 사용자의 ID
+     * @param friendRequestId 수락된 FriendRequest의 ID
+     */
+    public static NotificationOutbox friendRequestAccepted(Long requesterId, Long accepterId, Long friendRequestId) {
+        return new NotificationOutbox(NotificationType.FRIEND_REQUEST_ACCEPTED, requesterId, accepterId, friendRequestId);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.fcmspring.notification;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 아웃박스 테이블에 쌓인 알림을 주기적으로 가져가서 전송하는 백그라운드 작업입니다.
+ * 한 번에 여러 행을 가져가고(claim), 전송 요청만 하고 바로 돌아옵니다. 전송 결과를 기다리며 스케줄러 스레드를 붙잡지 않으므로,
+ * 합치기 창이나 재시도 때문에 오래 걸리는 행이 있어도 다른 행의 전송은 막히지 않습니다.
+ * 행마다 전송이 끝나면 그 결과를 완료 목록에 넣고, 다음 실행이 완료 목록을 상태별로 모아 한 번의 UPDATE로 반영합니다.
+ * 전송 도중 JVM이 종료되더라도 행은 PROCESSING 상태로 남아 있다가 claim-timeout이 지나면 다시 전송됩니다.
+ * <p>
+ * 가져갔지만 아직 끝나지 않은 행 수를 max-in-flight-rows로 제한하고, 배치 디스패처의 큐에 남은 자리만큼만 행을 가져갑니다.
+ * FCM이 느려지면 가져가기를 멈추고, 보내지 못한 알림은 메모리 대신 아웃박스 테이블에 PENDING으로 남아 있습니다.
+ */
+@Slf4j
+@Component
+public class NotificationOutboxDrainer {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final FcmBatchDispatcher fcmBatchDispatcher;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final int maxInFlightRows;
+    private final Duration claimTimeout;
+    private final Duration doneRetention;
+
+    // 가져갔지만 전송 결과가 아직 반영되지 않은 행 수
+    private final AtomicInteger inFlightRows = new AtomicInteger();
+    // 전송이 끝났지만 아직 상태를 반영하지 않은 행. 전송 콜백 스레드에서 넣고, 드레이너가 꺼내서 반영합니다.
+    private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+
+    public NotificationOutboxDrainer(NotificationOutboxRepository outboxRepository,
+                                     NotificationService notificationService,
+                                     FcmBatchDispatcher fcmBatchDispatcher,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${notification.outbox.batch-size:500}") int batchSize,
+                                     @Value("${notification.outbox.max-attempts:5}") int maxAttempts,
+                                     @Value("${notification.outbox.max-in-flight-rows:5000}") int maxInFlightRows,
+                                     @Value("${notification.outbox.claim-timeout-ms:60000}") long claimTimeoutMillis,
+                                     @Value("${notification.outbox.done-retention-hours:24}") long doneRetentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.fcmBatchDispatcher = fcmBatchDispatcher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.maxInFlightRows = maxInFlightRows;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        this.doneRetention = Duration.ofHours(doneRetentionHours);
+        Gauge.builder("notification.outbox.in.flight", inFlightRows, AtomicInteger::get)
+                .description("가져갔지만 전송 결과가 아직 반영되지 않은 아웃박스 행 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 전송이 끝난 행의 상태를 반영하고, 대기 중인 알림을 가져가서 전송 요청합니다.
+     * 가져간 행 수가 배치 크기와 같으면 아직 쌓인 행이 더 있다는 뜻이므로, 동시 처리 한도 안에서 바로 다음 배치를 가져갑니다.
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:200}")
+    public void drain() {
+        applyCompletions();
+        int claimed;
+        do {
+            claimed = drainOnce();
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * 처리가 끝난 지 오래된 DONE 행을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.purge-interval-ms:3600000}")
+    public void purgeDone() {
+        int deleted = outboxRepository.deleteDoneBefore(LocalDateTime.now().minus(doneRetention));
+        if (deleted > 0) {
+            log.info("전송이 끝난 아웃박스 행 {}건을 삭제했습니다.", deleted);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        // 종료 전까지 끝난 전송 결과는 반영해 두어, 재시작 후 claim-timeout이 지나 다시 전송되는 행을 줄입니다.
+        applyCompletions();
+    }
+
+    private int drainOnce() {
+        // 행 하나가 메시지 하나 이상(기기 수만큼)이 되므로, 큐의 남은 자리보다 많이 가져가지 않습니다.
+        // 아웃박스에 기록되는 알림(친구 요청, 수락)은 모두 HIGH 레인이므로 그 레인의 큐만 봅니다.
+        int limit = Math.min(batchSize, Math.min(maxInFlightRows - inFlightRows.get(),
+                fcmBatchDispatcher.remainingCapacity(NotificationLane.HIGH)));
+        if (limit <= 0) {
+            return 0;
+        }
+        String claimToken = UUID.randomUUID().toString();
+        List<NotificationOutbox> rows = outboxRepository.claimBatch(
+                limit, claimToken, LocalDateTime.now().minus(claimTimeout));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // 가져간 모든 행을 전송 요청하고 기다리지 않습니다. 실제 전송은 배치 디스패처가 묶어서 처리합니다.
+        // claim-timeout 안에 끝나지 않은 행은 다른 실행이 다시 가져가므로, 그 뒤에 온 결과는 반영하지 않고 PROCESSING으로 남겨 둡니다.
+        inFlightRows.addAndGet(rows.size());
+        for (NotificationOutbox row : rows) {
+            long id = row.getId();
+            int attempts = row.getAttempts();
+            dispatch(row)
+                    .orTimeout(claimTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((status, ex) -> {
+                        inFlightRows.decrementAndGet();
+                        if (ex == null) {
+                            completions.add(new Completion(id, claimToken, attempts, status));
+                        }
+                    });
+        }
+        return rows.size();
+    }
+
+    /**
+     * 전송이 끝난 행들을 가져간 실행(claimToken)과 결과별로 나누어, 묶음마다 한 번씩만 UPDATE 합니다.
+     */
+    private void applyCompletions() {
+        Map<String, List<Long>> done = new HashMap<>();
+        Map<String, List<Long>> retry = new HashMap<>();
+        Map<String, List<Long>> failed = new HashMap<>();
+        Completion completion;
+        while ((completion = completions.poll()) != null) {
+            Map<String, List<Long>> target;
+            if (completion.status() == DeliveryStatus.REJECTED) {
+                // FCM이 거절한 알림은 다시 보내도 같은 결과이므로 시도 횟수와 상관없이 바로 FAILED로 남깁니다.
+                target = failed;
+            } else if (completion.status() != DeliveryStatus.FAILED) {
+                target = done;
+            } else if (completion.attempts() >= maxAttempts) {
+                target = failed;
+            } else {
+                target = retry;
+            }
+            target.computeIfAbsent(completion.claimToken(), token -> new ArrayList<>()).add(completion.id());
+        }
+        done.forEach((claimToken, ids) -> outboxRepository.markDone(ids, claimToken));
+        retry.forEach((claimToken, ids) -> outboxRepository.markForRetry(ids, claimToken));
+        failed.forEach((claimToken, ids) -> {
+            outboxRepository.markFailed(ids, claimToken);
+            log.warn("최대 시도 횟수를 넘겼거나 FCM이 거절하여 전송을 포기한 아웃박스 행: {}", ids);
+        });
+    }
+
+    private CompletableFuture<DeliveryStatus> dispatch(NotificationOutbox row) {
+        try {
+            return switch (row.getType()) {
+                case FRIEND_REQUEST -> notificationService.sendFriendRequestNotification(row.getRecipientId(), row.getActorId());
+                case FRIEND_REQUEST_ACCEPTED -> notificationService.sendFriendRequestAcceptedNotification(row.getRecipientId(), row.getActorId());
+                case BROADCAST -> throw new IllegalStateException("토픽 브로드캐스트는 아웃박스에 기록되지 않습니다.");
+            };
+        } catch (RuntimeException e) {
+            log.error("아웃박스 알림 전송 요청 중 에러 발생. id={}", row.getId(), e);
+            return CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+        }
+    }
+
+    private record Completion(long id, String claimToken, int attempts, DeliveryStatus status) {
+    }
+}
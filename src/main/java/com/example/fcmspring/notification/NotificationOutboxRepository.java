@@ -0,0 +1,136 @@
+package com.example.fcmspring.notification;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * NotificationOutbox 엔티티에 대한 데이터베이스 작업을 EntityManager로 직접 구현하는 리포지토리입니다.
+ * 여러 행을 한 번에 가져가고(claim) 한 번에 상태를 바꾸는 벌크 쿼리를 제공합니다.
+ */
+@Repository
+public class NotificationOutboxRepository {
+
+    private final EntityManager em;
+
+    public NotificationOutboxRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * save: 아웃박스 행을 저장합니다.
+     * 호출한 쪽의 트랜잭션(예: 친구 요청 저장)에 참여하므로 두 데이터가 함께 커밋되거나 함께 롤백됩니다.
+     */
+    @Transactional
+    public NotificationOutbox save(NotificationOutbox outbox) {
+        em.persist(outbox);
+        return outbox;
+    }
+
+    /**
+     * 전송할 행을 최대 limit개까지 가져가서 PROCESSING 상태로 바꿉니다.
+     * 오래 전에 가져갔지만 끝나지 않은 PROCESSING 행(드레이너가 죽은 경우 등)도 다시 가져갑니다.
+     * <p>
+     * 후보 ID를 먼저 조회한 뒤 같은 조건을 건 UPDATE로 상태를 바꾸므로,
+     * 여러 인스턴스가 동시에 실행되어도 한 행은 한 드레이너만 가져갑니다.
+     *
+     * @param limit       한 번에 가져갈 최대 행 수
+     * @param claimToken  이번 실행을 구분하는 토큰
+     * @param staleBefore 이 시간보다 먼저 가져간 PROCESSING 행은 다시 가져갑니다.
+     * @return 이번 실행이 가져간 아웃박스 행 목록
+     */
+    @Transactional
+    public List<NotificationOutbox> claimBatch(int limit, String claimToken, LocalDateTime staleBefore) {
+        List<Long> candidateIds = em.createQuery(
+                        "SELECT o.id FROM NotificationOutbox o " +
+                                "WHERE o.status = :pending OR (o.status = :processing AND o.claimedAt < :staleBefore) " +
+                                "ORDER BY o.id", Long.class)
+                .setParameter("pending", OutboxStatus.PENDING)
+                .setParameter("processing", OutboxStatus.PROCESSING)
+                .setParameter("staleBefore", staleBefore)
+                .setMaxResults(limit)
+                .getResultList();
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+
+        int claimed = em.createQuery(
+                        "UPDATE NotificationOutbox o " +
+                                "SET o.status = :processing, o.claimToken = :claimToken, o.claimedAt = :now, o.attempts = o.attempts + 1 " +
+                                "WHERE o.id IN :ids " +
+                                "AND (o.status = :pending OR (o.status = :processing AND o.claimedAt < :staleBefore))")
+                .setParameter("processing", OutboxStatus.PROCESSING)
+                .setParameter("pending", OutboxStatus.PENDING)
+                .setParameter("claimToken", claimToken)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("staleBefore", staleBefore)
+                .setParameter("ids", candidateIds)
+                .executeUpdate();
+        if (claimed == 0) {
+            return List.of();
+        }
+
+        return em.createQuery(
+                        "SELECT o FROM NotificationOutbox o WHERE o.id IN :ids AND o.claimToken = :claimToken ORDER BY o.id",
+                        NotificationOutbox.class)
+                .setParameter("ids", candidateIds)
+                .setParameter("claimToken", claimToken)
+                .getResultList();
+    }
+
+    /**
+     * 전송이 끝난 행들을 한 번에 DONE 상태로 바꿉니다.
+     */
+    @Transactional
+    public int markDone(Collection<Long> ids, String claimToken) {
+        return updateStatus(ids, claimToken, OutboxStatus.DONE, LocalDateTime.now());
+    }
+
+    /**
+     * 전송에 실패한 행들을 다시 PENDING 상태로 돌려 다음 실행에서 재시도하도록 합니다.
+     */
+    @Transactional
+    public int markForRetry(Collection<Long> ids, String claimToken) {
+        return updateStatus(ids, claimToken, OutboxStatus.PENDING, null);
+    }
+
+    /**
+     * 최대 시도 횟수를 넘긴 행들을 FAILED 상태로 바꿉니다.
+     */
+    @Transactional
+    public int markFailed(Collection<Long> ids, String claimToken) {
+        return updateStatus(ids, claimToken, OutboxStatus.FAILED, LocalDateTime.now());
+    }
+
+    /**
+     * 처리가 끝난 지 오래된 DONE 행을 삭제하여 테이블이 계속 커지지 않도록 합니다.
+     */
+    @Transactional
+    public int deleteDoneBefore(LocalDateTime processedBefore) {
+        return em.createQuery("DELETE FROM NotificationOutbox o WHERE o.status = :done AND o.processedAt < :processedBefore")
+                .setParameter("done", OutboxStatus.DONE)
+                .setParameter("processedBefore", processedBefore)
+                .executeUpdate();
+    }
+
+    private int updateStatus(Collection<Long> ids, String claimToken, OutboxStatus status, LocalDateTime processedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // 다른 드레이너가 오래된 행으로 판단해 다시 가져간 경우를 덮어쓰지 않도록
+        // 이번 실행이 가져간(claimToken이 같은) PROCESSING 행만 바꿉니다.
+        return em.createQuery(
+                        "UPDATE NotificationOutbox o SET o.status = :status, o.processedAt = :processedAt " +
+                                "WHERE o.id IN :ids AND o.claimToken = :claimToken AND o.status = :processing")
+                .setParameter("status", status)
+                .setParameter("processedAt", processedAt)
+                .setParameter("ids", ids)
+                .setParameter("claimToken", claimToken)
+                .setParameter("processing", OutboxStatus.PROCESSING)
+                .executeUpdate();
+    }
+}
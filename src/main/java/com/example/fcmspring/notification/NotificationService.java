@@ -1,92 +1,279 @@
 package com.example.fcmspring.notification;
 
-import com.example.fcmspring.users.User;
+import com.example.fcmspring._core.logging.LogSampler;
+import com.example.fcmspring.users.DeviceTokenService;
 import com.example.fcmspring.users.UserService;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
+import com.example.fcmspring.users.UserTokenView;
 import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.Notification;
-import org.springframework.scheduling.annotation.Async;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FCM 메시지 전송을 담당하는 서비스 클래스입니다.
  */
+@Slf4j
 @Service
 public class NotificationService {
 
-    // FirebaseConfig에서 Bean으로 등록한 FirebaseMessaging 객체를 주입받습니다.
-    private final FirebaseMessaging firebaseMessaging;
+    // 전송 성공 로그는 메시지마다 남으므로 샘플링합니다.
+    private static final String SEND_SUCCESS_EVENT = "fcm.send.success";
+
+    // 일시적인 오류를 재시도해 주는 스케줄러를 주입받습니다. 실제 전송은 그 뒤의 배치 디스패처가 sendEach로 묶어서 처리합니다.
+    private final FcmRetryScheduler fcmRetryScheduler;
+    private final NotificationCoalescer notificationCoalescer;
+    private final NotificationMessageFactory messageFactory;
     private final UserService userService;
+    private final DeviceTokenService deviceTokenService;
+    private final DeadTokenPruner deadTokenPruner;
+    private final MeterRegistry meterRegistry;
+    private final LogSampler logSampler;
+
+    // 메시지 단위 전송 결과와, 알림 한 건(수신자의 모든 기기)을 보내는 데 걸린 시간을 최종 결과별로 기록합니다.
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter exceptionCounter;
+    private final Map<NotificationType, Map<DeliveryStatus, Timer>> deliveryTimers = new EnumMap<>(NotificationType.class);
 
-    public NotificationService(FirebaseMessaging firebaseMessaging, UserService userService) {
-        this.firebaseMessaging = firebaseMessaging;
+    public NotificationService(FcmRetryScheduler fcmRetryScheduler,
+                               NotificationCoalescer notificationCoalescer,
+                               NotificationMessageFactory messageFactory,
+                               UserService userService,
+                               DeviceTokenService deviceTokenService,
+                               DeadTokenPruner deadTokenPruner,
+                               MeterRegistry meterRegistry,
+                               LogSampler logSampler) {
+        this.fcmRetryScheduler = fcmRetryScheduler;
+        this.notificationCoalescer = notificationCoalescer;
+        this.messageFactory = messageFactory;
         this.userService = userService;
+        this.deviceTokenService = deviceTokenService;
+        this.deadTokenPruner = deadTokenPruner;
+        this.meterRegistry = meterRegistry;
+        this.logSampler = logSampler;
+        this.sentCounter = messageCounter(meterRegistry, "success");
+        this.failedCounter = messageCounter(meterRegistry, "failure");
+        this.exceptionCounter = messageCounter(meterRegistry, "exception");
+        for (NotificationType type : List.of(NotificationType.FRIEND_REQUEST, NotificationType.FRIEND_REQUEST_ACCEPTED)) {
+            Map<DeliveryStatus, Timer> timers = new EnumMap<>(DeliveryStatus.class);
+            for (DeliveryStatus status : DeliveryStatus.values()) {
+                timers.put(status, Timer.builder("notification.delivery")
+                        .description("알림 한 건을 수신자의 모든 기기로 보내고 결과를 받기까지 걸린 시간 (재시도 포함)")
+                        .tag("type", type.name())
+                        .tag("status", status.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            deliveryTimers.put(type, timers);
+        }
+    }
+
+    private static Counter messageCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("fcm.send.messages")
+                .description("FCM으로 보낸 메시지의 최종 결과별 수")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
      * 친구 요청 알림을 특정 사용자에게 보냅니다.
+     * 이 메소드는 아웃박스 드레이너가 호출하며, 전송 결과를 Future로 돌려주어 드레이너가 아웃박스 행의 상태를 정할 수 있게 합니다.
+     * 같은 수신자에게 짧은 시간 안에 요청이 몰리면 첫 알림만 바로 보내고, 나머지는 요약 알림 한 건으로 합쳐서 보냅니다.
      *
      * @param recipientId 알림을 받을 사용자의 ID
      * @param requesterId 친구 요청을 보낸 사용자의 ID
+     * @return 전송 결과로 완료되는 Future. 예외로 완료되지 않고 항상 DeliveryStatus로 완료됩니다.
+     */
+    public CompletableFuture<DeliveryStatus> sendFriendRequestNotification(Long recipientId, Long requesterId) {
+        return notificationCoalescer.submit(recipientId, requesterId,
+                (latestRequesterId, requestCount) -> deliverFriendRequest(recipientId, latestRequesterId, requestCount));
+    }
+
+    /**
+     * 친구 요청 알림 한 건을 실제로 전송하고, 걸린 시간을 최종 결과별로 기록합니다.
+     *
+     * @param requesterId  가장 최근에 친구 요청을 보낸 사용자의 ID
+     * @param requestCount 이 알림이 대표하는 친구 요청 수 (2 이상이면 요약 알림)
+     */
+    private CompletableFuture<DeliveryStatus> deliverFriendRequest(Long recipientId, Long requesterId, int requestCount) {
+        // 사용자·토큰 조회 시간까지 포함하도록 조회 전에 시작 시각을 잡습니다.
+        long startNanos = System.nanoTime();
+        return timed(NotificationType.FRIEND_REQUEST, buildAndSendFriendRequest(recipientId, requesterId, requestCount),
+                startNanos);
+    }
+
+    /**
+     * 친구 요청이 수락되었음을 요청을 보냈던 사용자에게 알립니다.
+     * 수락은 요청마다 한 번뿐이므로 합치지 않고 바로 보냅니다. 친구 요청 알림과 같은 아웃박스 드레이너 경로로 호출됩니다.
+     * 친구 요청 알림과 같이, 보낼 대상이 없어 SKIPPED로 끝난 경우를 포함해 걸린 시간을 최종 결과별로 기록합니다.
+     *
+     * @param requesterId 친구 요청을 보냈던 사용자(알림을 받을 사용자)의 ID
+     * @param accepterId  친구 요청을 수락한 사용자의 ID
+     * @return 전송 결과로 완료되는 Future. 예외로 완료되지 않고 항상 DeliveryStatus로 완료됩니다.
      */
-    @Async // 이 어노테이션 하나로 비동기 처리가 적용됩니다.
-    public void sendFriendRequestNotification(Long recipientId, Long requesterId) {
-        // 1. 알림을 받을 사용자(수신자)와 요청을 보낸 사용자(요청자)의 정보를 DB에서 조회합니다.
-        Optional<User> recipientUserOpt = userService.findById(recipientId);
-        Optional<User> requesterUserOpt = userService.findById(requesterId);
+    public CompletableFuture<DeliveryStatus> sendFriendRequestAcceptedNotification(Long requesterId, Long accepterId) {
+        long startNanos = System.nanoTime();
+        return timed(NotificationType.FRIEND_REQUEST_ACCEPTED, buildAndSendFriendRequestAccepted(requesterId, accepterId),
+                startNanos);
+    }
+
+    // 수락 알림 메시지를 만들어 친구 요청을 보냈던 사용자의 모든 기기로 보냅니다.
+    private CompletableFuture<DeliveryStatus> buildAndSendFriendRequestAccepted(Long requesterId, Long accepterId) {
+        Optional<UserTokenView> requesterOpt = userService.findTokenView(requesterId);
+        Optional<UserTokenView> accepterOpt = userService.findTokenView(accepterId);
+        if (requesterOpt.isEmpty() || accepterOpt.isEmpty()) {
+            log.info("알림을 보낼 사용자 또는 수락한 사용자가 존재하지 않습니다. requesterId={}, accepterId={}", requesterId, accepterId);
+            return CompletableFuture.completedFuture(DeliveryStatus.SKIPPED);
+        }
+        List<String> tokens = deviceTokenService.findTokens(requesterOpt.get());
+        if (tokens.isEmpty()) {
+            log.info("수신자의 FCM 토큰이 등록되지 않았습니다. recipient={}", requesterOpt.get().username());
+            return CompletableFuture.completedFuture(DeliveryStatus.SKIPPED);
+        }
+
+        Message.Builder template = messageFactory.friendRequestAccepted(requesterOpt.get(), accepterId, accepterOpt.get().username());
+        return sendToDevices(NotificationType.FRIEND_REQUEST_ACCEPTED, requesterId, tokens, template);
+    }
+
+    /**
+     * 전송이 끝나면 startNanos부터 걸린 시간을 알림 종류와 최종 결과별로 기록합니다.
+     */
+    private CompletableFuture<DeliveryStatus> timed(NotificationType type, CompletableFuture<DeliveryStatus> delivery,
+                                                    long startNanos) {
+        Map<DeliveryStatus, Timer> timers = deliveryTimers.get(type);
+        return delivery.whenComplete((status, ex) -> {
+            if (status != null) {
+                timers.get(status).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    // 알림 메시지를 만들어 수신자의 모든 기기로 보냅니다.
+    private CompletableFuture<DeliveryStatus> buildAndSendFriendRequest(Long recipientId, Long requesterId, int requestCount) {
+        // 1. 알림을 받을 사용자(수신자)와 요청을 보낸 사용자(요청자)의 정보를 조회합니다.
+        // 캐시를 거치므로 최근에 조회된 사용자라면 DB에 다시 접근하지 않습니다.
+        Optional<UserTokenView> recipientUserOpt = userService.findTokenView(recipientId);
+        Optional<UserTokenView> requesterUserOpt = userService.findTokenView(requesterId);
 
         // 2. 사용자 정보가 없는 경우, 로그를 남기고 함수를 종료합니다.
         if (recipientUserOpt.isEmpty() || requesterUserOpt.isEmpty()) {
-            System.out.println("알림을 보낼 사용자 또는 요청자가 존재하지 않습니다.");
-            return;
+            log.info("알림을 보낼 사용자 또는 요청자가 존재하지 않습니다. recipientId={}, requesterId={}", recipientId, requesterId);
+            return CompletableFuture.completedFuture(DeliveryStatus.SKIPPED);
         }
 
-        User recipientUser = recipientUserOpt.get();
-        User requesterUser = requesterUserOpt.get();
+        UserTokenView recipientUser = recipientUserOpt.get();
+        UserTokenView requesterUser = requesterUserOpt.get();
 
-        String recipientFcmToken = recipientUser.getFcmToken();
-        // 3. 수신자의 FCM 토큰이 등록되어 있는지 확인합니다. 토큰이 없으면 알림을 보낼 수 없습니다.
-        if (recipientFcmToken == null || recipientFcmToken.isEmpty()) {
-            System.out.println("수신자의 FCM 토큰이 등록되지 않았습니다: " + recipientUser.getUsername());
-            return;
+        // 3. 수신자가 등록한 모든 기기의 토큰을 조회합니다. 토큰이 없으면 알림을 보낼 수 없습니다.
+        List<String> recipientTokens = deviceTokenService.findTokens(recipientUser);
+        if (recipientTokens.isEmpty()) {
+            log.info("수신자의 FCM 토큰이 등록되지 않았습니다. recipient={}", recipientUser.username());
+            return CompletableFuture.completedFuture(DeliveryStatus.SKIPPED);
         }
 
-        // 4. 알림 메시지를 구성합니다. (Notification Payload)
-        // 이 부분은 사용자의 디바이스에 직접 표시될 알림의 제목과 본문에 해당합니다.
-        Notification notification = Notification.builder()
-                .setTitle("새로운 친구 요청")
-                .setBody(requesterUser.getUsername() + " 님이 친구 요청을 보냈습니다.")
-                .build();
-
-        // 5. 알림과 함께 보낼 추가 데이터를 구성합니다. (Data Payload)
-        // 이 데이터는 Flutter 앱이 백그라운드나 포그라운드에서 받아서 특정 로직을 처리하는 데 사용됩니다.
-        // (예: 알림 클릭 시 특정 페이지로 이동)
-        Map<String, String> data = Map.of(
-                "type", "FRIEND_REQUEST",
-                "requesterId", String.valueOf(requesterId),
-                "requesterUsername", requesterUser.getUsername(),
-                "recipientId", String.valueOf(recipientId)
-        );
-
-        // 6. FCM 메시지 객체를 최종적으로 생성합니다.
-        Message message = Message.builder()
-                .setToken(recipientFcmToken)      // 이 토큰을 가진 기기로 메시지를 보냅니다.
-                .setNotification(notification)   // 사용자에게 보여줄 알림 내용
-                .putAllData(data)                // 앱에서 처리할 추가 데이터
-                .build();
-
-        // 7. 구성된 메시지를 FCM으로 전송합니다.
-        try {
-            String response = firebaseMessaging.send(message);
-            System.out.println("Successfully sent message to FCM: " + response);
-        } catch (FirebaseMessagingException e) {
-            // 비동기 호출에서는 예외를 다시 던져서 핸들러가 처리하도록 해야 합니다.
-            System.err.println("FCM 전송 중 에러 발생! 핸들러로 예외를 전파합니다.");
-            throw new RuntimeException(e); // 핸들러가 잡을 수 있도록 런타임 예외로 감싸서 던집니다.
+        // 4. 수신자의 언어로 토큰을 제외한 메시지 내용을 구성합니다. 모든 기기에 같습니다.
+        // 문구와 앱에서 처리할 데이터(예: 알림 클릭 시 요청자 화면으로 이동)는 NotificationMessageFactory가 만듭니다.
+        Message.Builder template = messageFactory.friendRequest(recipientUser, requesterId, requesterUser.username(), requestCount);
+
+        // 5. 기기별 메시지를 보냅니다.
+        return sendToDevices(NotificationType.FRIEND_REQUEST, recipientId, recipientTokens, template);
+    }
+
+    /**
+     * 토큰마다 메시지를 만들어 재시도 스케줄러를 거쳐 배치 디스패처에 넘기고, 기기별 결과를 하나로 합칩니다.
+     * 디스패처가 기기별 메시지를 다른 메시지들과 함께 최대 500건씩 묶어서 sendEach로 전송하므로, 기기 수만큼 FCM을 호출하지 않습니다.
+     *
+     * @param template 토큰을 제외한 내용이 채워진 메시지 빌더. 토큰만 바꿔 가며 build합니다.
+     */
+    private CompletableFuture<DeliveryStatus> sendToDevices(NotificationType type, Long recipientId, List<String> tokens,
+                                                            Message.Builder template) {
+        List<CompletableFuture<DeliveryStatus>> deliveries = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Message message = template
+                    .setToken(token)                  // 이 토큰을 가진 기기로 메시지를 보냅니다.
+                    .build();
+            deliveries.add(send(message, new NotificationTarget(type, recipientId, token)));
         }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> combine(deliveries));
+    }
+
+    private CompletableFuture<DeliveryStatus> send(Message message, NotificationTarget target) {
+        return fcmRetryScheduler.send(message, target).handle((outcome, ex) -> {
+            if (ex != null) {
+                exceptionCounter.increment();
+                log.error("FCM 전송 중 에러 발생. recipientId={}", target.recipientId(), ex);
+                return DeliveryStatus.FAILED;
+            }
+            if (outcome.isSuccessful()) {
+                sentCounter.increment();
+                if (logSampler.sample(SEND_SUCCESS_EVENT)) {
+                    log.info("Successfully sent message to FCM: messageId={} (sampled 1/{})",
+                            outcome.messageId(), logSampler.intervalOf(SEND_SUCCESS_EVENT));
+                }
+                return DeliveryStatus.SENT;
+            }
+            failedCounter.increment();
+            log.warn("FCM 전송 실패. code={}, message={}", outcome.errorCode(), outcome.errorMessage());
+            return handleFailure(target.fcmToken(), outcome);
+        });
+    }
+
+    /**
+     * 기기별 전송 결과를 알림 하나의 결과로 합칩니다.
+     * 한 기기에라도 전송되었으면 SENT입니다. 이때 아웃박스가 다시 보내면 이미 받은 기기에 중복 알림이 가므로 재시도하지 않습니다.
+     * 전송된 기기가 없고 재시도할 수 있는 실패가 있으면 FAILED로 돌려주어 아웃박스가 다시 보내게 합니다.
+     */
+    private static DeliveryStatus combine(List<CompletableFuture<DeliveryStatus>> deliveries) {
+        boolean failed = false;
+        boolean deadLettered = false;
+        boolean rejected = false;
+        for (CompletableFuture<DeliveryStatus> delivery : deliveries) {
+            DeliveryStatus status = delivery.join();
+            if (status == DeliveryStatus.SENT) {
+                return DeliveryStatus.SENT;
+            }
+            failed |= status == DeliveryStatus.FAILED;
+            deadLettered |= status == DeliveryStatus.DEAD_LETTERED;
+            rejected |= status == DeliveryStatus.REJECTED;
+        }
+        if (failed) {
+            return DeliveryStatus.FAILED;
+        }
+        if (deadLettered) {
+            return DeliveryStatus.DEAD_LETTERED;
+        }
+        return rejected ? DeliveryStatus.REJECTED : DeliveryStatus.SKIPPED;
+    }
+
+    /**
+     * 전송 실패를 에러 코드별로 집계하고, 토큰이 더 이상 유효하지 않으면 정리 대상으로 보고합니다.
+     *
+     * @return 토큰 문제로 실패했으면 다시 보내도 소용없으므로 SKIPPED,
+     * 일시적인 오류였다면 재시도 스케줄러가 이미 재시도를 소진하고 데드 레터로 기록했으므로 DEAD_LETTERED,
+     * 그 외(인증 설정 오류 등)에는 다시 보내도 같은 오류가 나므로 아웃박스가 재시도하지 않도록 REJECTED
+     */
+    private DeliveryStatus handleFailure(String fcmToken, SendOutcome outcome) {
+        String code = outcome.errorCode() == null ? "UNKNOWN" : outcome.errorCode().name();
+        meterRegistry.counter("fcm.send.errors", "code", code).increment();
+
+        return switch (FcmErrorCategory.of(outcome.errorCode())) {
+            case DEAD_TOKEN -> {
+                deadTokenPruner.report(fcmToken);
+                yield DeliveryStatus.SKIPPED;
+            }
+            case TRANSIENT -> DeliveryStatus.DEAD_LETTERED;
+            case PERMANENT -> DeliveryStatus.REJECTED;
+        };
     }
 }
@@ -0,0 +1,12 @@
+package com.example.fcmspring.notification;
+
+/**
+ * 전송하는 메시지가 누구에게 어떤 알림으로 가는지를 나타냅니다.
+ * FCM Message 객체는 내용을 다시 읽을 수 없으므로, 재시도 실패 시 데드 레터에 남길 정보를 따로 전달합니다.
+ *
+ * @param type        알림의 종류
+ * @param recipientId 알림을 받을 사용자의 ID
+ * @param fcmToken    메시지를 보낸 FCM 토큰 (토픽 브로드캐스트는 "/topics/{토픽 이름}", 수신자 ID는 null)
+ */
+public record NotificationTarget(NotificationType type, Long recipientId, String fcmToken) {
+}
@@ -0,0 +1,131 @@
+package com.example.fcmspring.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 언어별 알림 문구 템플릿 저장소입니다.
+ * 시작할 때 classpath:notifications/messages_{언어}.properties를 읽어 모든 템플릿을 미리 파싱해 두고,
+ * 전송할 때는 사용자의 언어 태그로 LocalizedTemplates를 찾아 필드로 바로 꺼내 씁니다.
+ * <p>
+ * 언어는 "en-US" → "en" → 기본 언어 순서로 찾고, 찾은 결과는 언어 태그별로 기억합니다.
+ * 기본 언어가 아닌 파일에 빠진 키는 기본 언어의 문구를 사용합니다.
+ */
+@Slf4j
+@Component
+public class NotificationTemplates {
+
+    /**
+     * 알림 문구를 만드는 방법입니다.
+     */
+    public enum Mode {
+        // 서버가 사용자 언어로 문구를 만들어 보냅니다.
+        TEXT,
+        // 문구 대신 키와 인자(title_loc_key, body_loc_key, body_loc_args)만 보내고, 기기가 자기 언어로 문구를 만듭니다.
+        // 웹 브라우저는 키를 해석하지 못하므로 웹푸시에는 서버가 만든 문구를 함께 보냅니다.
+        LOC_KEY
+    }
+
+    static final String FRIEND_REQUEST_TITLE = "friend_request_title";
+    static final String FRIEND_REQUEST_BODY = "friend_request_body";
+    static final String FRIEND_REQUEST_SUMMARY_BODY = "friend_request_summary_body";
+    static final String FRIEND_REQUEST_ACCEPTED_TITLE = "friend_request_accepted_title";
+    static final String FRIEND_REQUEST_ACCEPTED_BODY = "friend_request_accepted_body";
+
+    /**
+     * 한 언어의 모든 템플릿입니다. 키로 찾지 않도록 템플릿마다 필드를 둡니다.
+     */
+    public record LocalizedTemplates(String locale,
+                                     CompiledTemplate friendRequestTitle,
+                                     CompiledTemplate friendRequestBody,
+                                     CompiledTemplate friendRequestSummaryBody,
+                                     CompiledTemplate friendRequestAcceptedTitle,
+                                     CompiledTemplate friendRequestAcceptedBody) {
+    }
+
+    private final Mode mode;
+    private final LocalizedTemplates defaults;
+    private final Map<String, LocalizedTemplates> byLocale = new HashMap<>();
+    // 사용자 언어 태그 → 찾은 템플릿. 태그 종류는 많지 않으므로 크기를 제한하지 않습니다.
+    private final Map<String, LocalizedTemplates> resolved = new ConcurrentHashMap<>();
+
+    public NotificationTemplates(@Value("${notification.template.mode:TEXT}") Mode mode,
+                                 @Value("${notification.template.default-locale:ko}") String defaultLocale,
+                                 @Value("${notification.template.locales:ko,en}") List<String> locales) {
+        this.mode = mode;
+        Properties defaultMessages = load(defaultLocale);
+        this.defaults = compile(defaultLocale, defaultMessages, new Properties());
+        byLocale.put(defaultLocale, defaults);
+        for (String locale : locales) {
+            if (!locale.equals(defaultLocale)) {
+                byLocale.put(locale, compile(locale, load(locale), defaultMessages));
+            }
+        }
+        log.info("알림 템플릿을 준비했습니다. mode={}, locales={}, default={}", mode, byLocale.keySet(), defaultLocale);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * 사용자의 언어 태그에 맞는 템플릿을 찾습니다.
+     *
+     * @param locale 언어 태그 (예: "en-US". 없으면 null)
+     */
+    public LocalizedTemplates forLocale(String locale) {
+        if (locale == null) {
+            return defaults;
+        }
+        return resolved.computeIfAbsent(locale, tag -> {
+            LocalizedTemplates exact = byLocale.get(tag);
+            if (exact != null) {
+                return exact;
+            }
+            return byLocale.getOrDefault(Locale.forLanguageTag(tag).getLanguage(), defaults);
+        });
+    }
+
+    private static LocalizedTemplates compile(String locale, Properties messages, Properties fallback) {
+        return new LocalizedTemplates(locale,
+                template(FRIEND_REQUEST_TITLE, messages, fallback),
+                template(FRIEND_REQUEST_BODY, messages, fallback),
+                template(FRIEND_REQUEST_SUMMARY_BODY, messages, fallback),
+                template(FRIEND_REQUEST_ACCEPTED_TITLE, messages, fallback),
+                template(FRIEND_REQUEST_ACCEPTED_BODY, messages, fallback));
+    }
+
+    private static CompiledTemplate template(String key, Properties messages, Properties fallback) {
+        String pattern = messages.getProperty(key, fallback.getProperty(key));
+        if (pattern == null) {
+            throw new IllegalStateException("알림 템플릿이 없습니다: " + key);
+        }
+        return CompiledTemplate.compile(key, pattern);
+    }
+
+    private static Properties load(String locale) {
+        ClassPathResource resource = new ClassPathResource("notifications/messages_" + locale + ".properties");
+        // Properties.load(InputStream)은 ISO-8859-1로 읽으므로, 한글 문구를 위해 UTF-8 Reader로 읽습니다.
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+            return properties;
+        } catch (IOException e) {
+            throw new UncheckedIOException("알림 템플릿 파일을 읽을 수 없습니다: " + resource.getPath(), e);
+        }
+    }
+}
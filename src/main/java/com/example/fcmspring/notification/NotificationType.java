@@ -0,0 +1,24 @@
+package com.example.fcmspring.notification;
+
+/**
+ * 아웃박스에 기록되는 알림의 종류를 정의하는 열거형(Enum) 클래스입니다.
+ * FRIEND_REQUEST: 친구 요청을 받았음을 수신자에게 알리는 알림
+ * FRIEND_REQUEST_ACCEPTED: 보낸 친구 요청이 수락되었음을 요청자에게 알리는 알림
+ * BROADCAST: 토픽을 구독한 모든 사용자에게 보내는 공지 (아웃박스를 거치지 않고 바로 전송합니다)
+ * 각 종류는 전송 우선순위 레인(NotificationLane)에 속합니다.
+ */
+public enum NotificationType {
+    FRIEND_REQUEST(NotificationLane.HIGH),
+    FRIEND_REQUEST_ACCEPTED(NotificationLane.HIGH),
+    BROADCAST(NotificationLane.BULK);
+
+    private final NotificationLane lane;
+
+    NotificationType(NotificationLane lane) {
+        this.lane = lane;
+    }
+
+    public NotificationLane lane() {
+        return lane;
+    }
+}
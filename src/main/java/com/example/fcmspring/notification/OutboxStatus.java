@@ -0,0 +1,15 @@
+package com.example.fcmspring.notification;
+
+/**
+ * 아웃박스 행의 처리 상태를 정의하는 열거형(Enum) 클래스입니다.
+ * PENDING: 아직 전송되지 않은 대기 상태
+ * PROCESSING: 드레이너가 가져가서 전송 중인 상태
+ * DONE: 전송이 끝난 상태
+ * FAILED: 최대 시도 횟수를 넘겨 더 이상 전송하지 않는 상태
+ */
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED
+}
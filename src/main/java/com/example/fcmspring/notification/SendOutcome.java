@@ -0,0 +1,94 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.IncomingHttpResponse;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메시지 한 건의 FCM 전송 결과를 담는 값 객체입니다.
+ * 배치 전송(sendEach)의 응답 목록에서 각 메시지에 해당하는 SendResponse를 꺼내어 이 형태로 변환합니다.
+ *
+ * @param messageId    전송에 성공했을 때 FCM이 발급한 메시지 ID (실패 시 null)
+ * @param errorCode    전송에 실패했을 때의 FCM 에러 코드 (성공 시 또는 코드가 없을 때 null)
+ * @param errorMessage 전송에 실패했을 때의 에러 메시지 (성공 시 null)
+ * @param retryAfter   FCM 서버가 Retry-After 헤더로 알려준 재시도 대기 시간 (없으면 null)
+ */
+public record SendOutcome(String messageId, MessagingErrorCode errorCode, String errorMessage, Duration retryAfter) {
+
+    public boolean isSuccessful() {
+        return messageId != null;
+    }
+
+    public static SendOutcome success(String messageId) {
+        return new SendOutcome(messageId, null, null, null);
+    }
+
+    public static SendOutcome failure(MessagingErrorCode errorCode, String errorMessage) {
+        return new SendOutcome(null, errorCode, errorMessage, null);
+    }
+
+    public static SendOutcome failure(FirebaseMessagingException e) {
+        return new SendOutcome(null, e.getMessagingErrorCode(), e.getMessage(), retryAfterOf(e.getHttpResponse()));
+    }
+
+    /**
+     * sendEach 응답 목록의 원소 하나를 SendOutcome으로 변환합니다.
+     */
+    public static SendOutcome from(SendResponse response) {
+        if (response.isSuccessful()) {
+            return success(response.getMessageId());
+        }
+        return failure(response.getException());
+    }
+
+    /**
+     * HTTP 응답의 Retry-After 헤더를 읽습니다. 값은 초 단위 숫자이거나 HTTP 날짜 형식일 수 있습니다.
+     */
+    private static Duration retryAfterOf(IncomingHttpResponse response) {
+        if (response == null) {
+            return null;
+        }
+        Object header = headerValue(response.getHeaders(), "retry-after");
+        if (header == null) {
+            return null;
+        }
+        String value = header.toString().trim();
+        try {
+            return Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException ignored) {
+            // 숫자가 아니면 HTTP 날짜 형식(RFC 1123)으로 해석합니다.
+        }
+        try {
+            Duration untilDate = Duration.between(ZonedDateTime.now(),
+                    ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Object headerValue(Map<String, Object> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, Object> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                // 헤더 값은 여러 개일 수 있으므로 목록이면 첫 번째 값을 사용합니다.
+                Object value = entry.getValue();
+                if (value instanceof List<?> list) {
+                    return list.isEmpty() ? null : list.get(0);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fcmspring.notification;
+
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 실제 FCM 서버 대신 응답을 흉내 내는 시뮬레이터 게이트웨이입니다. (simulator 프로필)
+ * Firebase 자격 증명 없이 애플리케이션을 띄우고, 부하 테스트나 통합 테스트를 오프라인으로 실행할 때 사용합니다.
+ * <p>
+ * - 응답 지연은 로그 정규 분포를 따르며, 중앙값(median)과 p99를 설정할 수 있습니다. 호출 한 번마다 한 번 기다립니다.
+ *   메시지 전송은 실제 SDK처럼 비동기로 응답하며, 지연되는 동안 호출한 스레드를 붙잡지 않습니다.
+ * - 에러 코드별 실패 확률을 설정할 수 있습니다. (예: UNAVAILABLE=0.01,UNREGISTERED=0.002)
+ */
+@Component
+@Profile("simulator")
+public class SimulatedMessagingGateway implements MessagingGateway {
+
+    // 표준 정규 분포의 99번째 백분위수
+    private static final double Z_99 = 2.3263;
+
+    private final double latencyMu;
+    private final double latencySigma;
+    private final boolean latencyEnabled;
+    private final Map<MessagingErrorCode, Double> errorRates;
+
+    private final AtomicLong messageSequence = new AtomicLong();
+
+    public SimulatedMessagingGateway(@Value("${simulator.fcm.latency.median-ms:20}") double medianMillis,
+                                     @Value("${simulator.fcm.latency.p99-ms:120}") double p99Millis,
+                                     @Value("${simulator.fcm.error-rates:}") String errorRates) {
+        if (medianMillis > 0 && p99Millis < medianMillis) {
+            throw new IllegalArgumentException("simulator.fcm.latency.p99-ms는 median-ms보다 작을 수 없습니다.");
+        }
+        this.latencyEnabled = medianMillis > 0;
+        this.latencyMu = latencyEnabled ? Math.log(medianMillis) : 0;
+        this.latencySigma = latencyEnabled ? Math.log(p99Millis / medianMillis) / Z_99 : 0;
+        this.errorRates = parseErrorRates(errorRates);
+    }
+
+    @Override
+    public CompletableFuture<List<SendOutcome>> sendEachAsync(List<Message> messages) {
+        List<SendOutcome> outcomes = simulateOutcomes(messages);
+        if (!latencyEnabled) {
+            return CompletableFuture.completedFuture(outcomes);
+        }
+        return CompletableFuture.supplyAsync(() -> outcomes,
+                CompletableFuture.delayedExecutor(nextLatencyMicros(), TimeUnit.MICROSECONDS));
+    }
+
+    private List<SendOutcome> simulateOutcomes(List<Message> messages) {
+        List<SendOutcome> outcomes = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            MessagingErrorCode code = pickError();
+            if (code == null) {
+                outcomes.add(SendOutcome.success("projects/simulator/messages/" + messageSequence.incrementAndGet()));
+            } else {
+                // 실제 FCM처럼 할당량 초과에는 Retry-After를 함께 돌려줍니다.
+                Duration retryAfter = code == MessagingErrorCode.QUOTA_EXCEEDED ? Duration.ofSeconds(1) : null;
+                outcomes.add(new SendOutcome(null, code, "simulated " + code, retryAfter));
+            }
+        }
+        return outcomes;
+    }
+
+    @Override
+    public TopicManagementOutcome subscribeToTopic(List<String> tokens, String topic) {
+        return manageTopic(tokens);
+    }
+
+    @Override
+    public TopicManagementOutcome unsubscribeFromTopic(List<String> tokens, String topic) {
+        return manageTopic(tokens);
+    }
+
+    private TopicManagementOutcome manageTopic(List<String> tokens) {
+        simulateLatency();
+        List<TopicManagementOutcome.Failure> errors = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            MessagingErrorCode code = pickError();
+            if (code != null) {
+                errors.add(new TopicManagementOutcome.Failure(i, topicReasonOf(code)));
+            }
+        }
+        return new TopicManagementOutcome(tokens.size() - errors.size(), errors.size(), errors);
+    }
+
+    private void simulateLatency() {
+        if (!latencyEnabled) {
+            return;
+        }
+        try {
+            TimeUnit.MICROSECONDS.sleep(nextLatencyMicros());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long nextLatencyMicros() {
+        double millis = Math.exp(latencyMu + latencySigma * ThreadLocalRandom.current().nextGaussian());
+        return (long) (millis * 1000);
+    }
+
+    /**
+     * 설정된 확률에 따라 에러 코드를 하나 고릅니다. 실패하지 않으면 null을 반환합니다.
+     */
+    private MessagingErrorCode pickError() {
+        if (errorRates.isEmpty()) {
+            return null;
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        double cumulative = 0;
+        for (Map.Entry<MessagingErrorCode, Double> entry : errorRates.entrySet()) {
+            cumulative += entry.getValue();
+            if (roll < cumulative) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String topicReasonOf(MessagingErrorCode code) {
+        return switch (code) {
+            case UNREGISTERED -> "registration-token-not-registered";
+            case INVALID_ARGUMENT -> "invalid-argument";
+            default -> "unknown-error";
+        };
+    }
+
+    /**
+     * "UNAVAILABLE=0.01,UNREGISTERED=0.002" 형식의 설정을 읽습니다.
+     */
+    static Map<MessagingErrorCode, Double> parseErrorRates(String value) {
+        Map<MessagingErrorCode, Double> rates = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return rates;
+        }
+        double total = 0;
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("simulator.fcm.error-rates 형식이 올바르지 않습니다: " + entry);
+            }
+            double rate = Double.parseDouble(pair[1].trim());
+            rates.put(MessagingErrorCode.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), rate);
+            total += rate;
+        }
+        if (total > 1.0) {
+            throw new IllegalArgumentException("simulator.fcm.error-rates의 합은 1 이하여야 합니다: " + total);
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.fcmspring.notification;
+
+import com.example.fcmspring.users.DeviceTokenService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * FCM 토픽을 이용해 전체 사용자에게 공지를 보내는 서비스입니다.
+ * <p>
+ * 사용자마다 메시지를 보내면 N명에게 N번 전송해야 하지만, 토픽을 구독시켜 두면 토픽으로 한 번만 보내면 됩니다.
+ * 구독은 DB에 등록된 토큰을 커서로 1000개씩(subscribeToTopic의 한도) 읽어서 한 번의 호출로 처리합니다.
+ * 대량 백필은 오래 걸리므로 백그라운드 작업으로 실행하고, 진행 상황과 처리량을 조회할 수 있게 합니다.
+ */
+@Slf4j
+@Service
+public class TopicBroadcastService {
+
+    // subscribeToTopic / unsubscribeFromTopic이 한 번에 받을 수 있는 최대 토큰 수입니다.
+    static final int TOPIC_MANAGEMENT_BATCH_SIZE = 1000;
+
+    // FCM 토픽 이름 규칙입니다.
+    private static final Pattern TOPIC_NAME = Pattern.compile("[a-zA-Z0-9-_.~%]{1,900}");
+
+    // 토큰이 더 이상 유효하지 않음을 뜻하는 구독 실패 사유입니다. 이 토큰들은 정리 대상으로 보고합니다.
+    private static final Set<String> DEAD_TOKEN_REASONS = Set.of("registration-token-not-registered", "invalid-argument");
+
+    // 진행 상황을 로그로 남기는 간격 (배치 수)
+    private static final int PROGRESS_LOG_INTERVAL = 10;
+
+    private final MessagingGateway messagingGateway;
+    private final FcmRetryScheduler fcmRetryScheduler;
+    private final DeviceTokenService deviceTokenService;
+    private final DeadTokenPruner deadTokenPruner;
+    private final NotificationLanes notificationLanes;
+    // 구독(해지) 호출 앞에서 초당 처리 토큰 수를 제한합니다. 토픽 관리는 메시지 전송과 FCM 할당량이 따로이므로 전송용 제한기와 나누어 씁니다.
+    private final FcmRateLimiter topicRateLimiter;
+    private final Counter subscribedCounter;
+    private final Counter unsubscribedCounter;
+
+    // 백필 작업은 FCM 쪽 부하를 고려하여 한 번에 하나씩 순서대로 실행합니다.
+    // 대기 중인 작업 수를 지표로 볼 수 있도록 Executors로 감싸지 않은 ThreadPoolExecutor를 씁니다.
+    private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "topic-subscription");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 실행 중이거나 대기 중인 작업. 끝난 작업은 finishedJobs로 옮겨 일정 시간 동안만 조회할 수 있게 하여, 작업 기록이 끝없이 쌓이지 않도록 합니다.
+    private final Map<String, TopicSubscriptionJob> jobs = new ConcurrentHashMap<>();
+    private final Cache<String, TopicSubscriptionJob> finishedJobs;
+
+    public TopicBroadcastService(MessagingGateway messagingGateway,
+                                 FcmRetryScheduler fcmRetryScheduler,
+                                 DeviceTokenService deviceTokenService,
+                                 DeadTokenPruner deadTokenPruner,
+                                 NotificationLanes notificationLanes,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.topic.job-retention-minutes:60}") long jobRetentionMinutes,
+                                 @Value("${notification.topic.job-history-size:100}") long jobHistorySize,
+                                 @Value("${notification.topic.rate-limit.tokens-per-second:3000}") double topicTokensPerSecond,
+                                 @Value("${notification.topic.rate-limit.burst:1000}") int topicBurst) {
+        this.messagingGateway = messagingGateway;
+        this.fcmRetryScheduler = fcmRetryScheduler;
+        this.deviceTokenService = deviceTokenService;
+        this.deadTokenPruner = deadTokenPruner;
+        this.notificationLanes = notificationLanes;
+        this.topicRateLimiter = new FcmRateLimiter(meterRegistry, "topic-management", topicTokensPerSecond, topicBurst);
+        this.finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(jobRetentionMinutes))
+                .maximumSize(jobHistorySize)
+                .build();
+        this.subscribedCounter = Counter.builder("fcm.topic.subscriptions")
+                .description("토픽 구독(해지) 백필에서 처리한 토큰 수")
+                .tag("action", "subscribe")
+                .register(meterRegistry);
+        this.unsubscribedCounter = Counter.builder("fcm.topic.subscriptions")
+                .description("토픽 구독(해지) 백필에서 처리한 토큰 수")
+                .tag("action", "unsubscribe")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(jobExecutor, "topic-subscription", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * 등록된 모든 토큰을 토픽에 구독(또는 해지)시키는 백그라운드 작업을 시작합니다.
+     * 구독은 멱등이므로, 작업이 중간에 실패했다면 같은 작업을 다시 실행하면 됩니다.
+     *
+     * @param topic     토픽 이름
+     * @param subscribe true면 구독, false면 구독 해지
+     * @return 시작한 작업의 진행 상황 (작업 ID로 다시 조회할 수 있습니다)
+     * @throws IllegalArgumentException 토픽 이름이 올바르지 않은 경우
+     */
+    public TopicSubscriptionProgress startSubscriptionJob(String topic, boolean subscribe) {
+        validateTopic(topic);
+        TopicSubscriptionJob job = new TopicSubscriptionJob(topic, subscribe);
+        jobs.put(job.id(), job);
+        jobExecutor.execute(() -> run(job));
+        return job.progress();
+    }
+
+    /**
+     * 작업의 진행 상황을 조회합니다. 끝난 작업은 notification.topic.job-retention-minutes 동안만 조회할 수 있습니다.
+     */
+    public Optional<TopicSubscriptionProgress> findJob(String jobId) {
+        TopicSubscriptionJob job = jobs.get(jobId);
+        if (job == null) {
+            job = finishedJobs.getIfPresent(jobId);
+        }
+        return Optional.ofNullable(job).map(TopicSubscriptionJob::progress);
+    }
+
+    /**
+     * 토픽을 구독한 모든 기기에 알림을 한 번의 전송으로 보냅니다.
+     * 대량(BULK) 레인으로 보내므로 기기를 바로 깨우지 않고, 여러 공지가 쌓이면 기기에는 마지막 공지만 남으며, TTL이 지나면 전달되지 않습니다.
+     *
+     * @return 전송 결과로 완료되는 Future
+     * @throws IllegalArgumentException 토픽 이름이 올바르지 않은 경우
+     */
+    public CompletableFuture<SendOutcome> broadcast(String topic, String title, String body) {
+        validateTopic(topic);
+        NotificationLane lane = NotificationType.BROADCAST.lane();
+        Message message = Message.builder()
+                .setTopic(topic)
+                .setNotification(Notification.builder()
+                        .setTitle(title)
+                        .setBody(body)
+                        .build())
+                .putData("type", NotificationType.BROADCAST.name())
+                .setAndroidConfig(notificationLanes.android(lane, null).build())
+                .setApnsConfig(notificationLanes.apns(lane, null).setAps(Aps.builder().build()).build())
+                .build();
+        return fcmRetryScheduler.send(message, new NotificationTarget(NotificationType.BROADCAST, null, "/topics/" + topic));
+    }
+
+    private void run(TopicSubscriptionJob job) {
+        job.start();
+        log.info("토픽 {} 작업 시작: topic={}, jobId={}", job.subscribe() ? "구독" : "구독 해지", job.topic(), job.id());
+        int[] batches = {0};
+        try {
+            deviceTokenService.forEachTokenBatch(TOPIC_MANAGEMENT_BATCH_SIZE, tokens -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+                manage(job, tokens);
+                if (++batches[0] % PROGRESS_LOG_INTERVAL == 0) {
+                    logProgress(job.progress());
+                }
+            });
+            job.finish(TopicSubscriptionJob.State.COMPLETED, null);
+        } catch (CancellationException e) {
+            job.finish(TopicSubscriptionJob.State.CANCELLED, "애플리케이션 종료로 작업이 중단되었습니다.");
+        } catch (RuntimeException e) {
+            job.finish(TopicSubscriptionJob.State.FAILED, e.getMessage());
+        } finally {
+            // 조회가 비는 순간이 없도록 보관용 캐시에 먼저 넣고 실행 중 목록에서 뺍니다.
+            finishedJobs.put(job.id(), job);
+            jobs.remove(job.id());
+        }
+        logProgress(job.progress());
+    }
+
+    private void manage(TopicSubscriptionJob job, List<String> tokens) {
+        // 토큰 수만큼 허가를 받은 뒤 호출합니다. 백필이 아무리 커도 초당 처리량이 제한값을 넘지 않습니다.
+        try {
+            topicRateLimiter.acquire(tokens.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+        // 호출 전체가 실패한 경우에는 모든 토큰이 실패로 집계됩니다. 작업은 계속 진행하고, 실패한 수는 진행 상황에 남깁니다.
+        TopicManagementOutcome outcome = job.subscribe()
+                ? messagingGateway.subscribeToTopic(tokens, job.topic())
+                : messagingGateway.unsubscribeFromTopic(tokens, job.topic());
+        for (TopicManagementOutcome.Failure error : outcome.errors()) {
+            if (DEAD_TOKEN_REASONS.contains(error.reason())) {
+                deadTokenPruner.report(tokens.get(error.index()));
+            }
+        }
+        job.record(tokens.size(), outcome.successCount(), outcome.failureCount());
+        (job.subscribe() ? subscribedCounter : unsubscribedCounter).increment(tokens.size());
+    }
+
+    private static void logProgress(TopicSubscriptionProgress progress) {
+        log.info("토픽 {} {} [{}]: 처리 {} (성공 {}, 실패 {}), {} tokens/s",
+                progress.topic(), progress.action(), progress.state(),
+                progress.processed(), progress.succeeded(), progress.failed(),
+                String.format("%.1f", progress.tokensPerSecond()));
+    }
+
+    private static void validateTopic(String topic) {
+        if (topic == null || !TOPIC_NAME.matcher(topic).matches()) {
+            throw new IllegalArgumentException("올바르지 않은 토픽 이름입니다: " + topic);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        jobExecutor.shutdownNow();
+    }
+}
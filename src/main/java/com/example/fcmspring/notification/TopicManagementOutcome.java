@@ -0,0 +1,28 @@
+package com.example.fcmspring.notification;
+
+import java.util.List;
+
+/**
+ * 토픽 구독(해지) 요청 한 번의 결과입니다.
+ * Firebase의 TopicManagementResponse는 SDK 밖에서 만들 수 없으므로 시뮬레이터와 함께 쓰기 위해 따로 정의합니다.
+ *
+ * @param successCount 성공한 토큰 수
+ * @param failureCount 실패한 토큰 수
+ * @param errors       토큰별 실패 정보 (호출 전체가 실패한 경우에는 비어 있습니다)
+ */
+public record TopicManagementOutcome(int successCount, int failureCount, List<Failure> errors) {
+
+    /**
+     * @param index  요청한 토큰 목록에서의 위치
+     * @param reason 실패 사유 (예: registration-token-not-registered)
+     */
+    public record Failure(int index, String reason) {
+    }
+
+    /**
+     * 호출 전체가 실패하여 모든 토큰이 실패한 결과입니다.
+     */
+    public static TopicManagementOutcome allFailed(int tokenCount) {
+        return new TopicManagementOutcome(0, tokenCount, List.of());
+    }
+}
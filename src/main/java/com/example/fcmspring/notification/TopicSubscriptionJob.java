@@ -0,0 +1,76 @@
+package com.example.fcmspring.notification;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 토픽 구독(해지) 백필 작업 하나의 상태를 보관합니다.
+ * 작업 스레드가 값을 갱신하고, 조회 API가 다른 스레드에서 읽으므로 카운터는 원자적 변수로, 상태는 volatile로 둡니다.
+ */
+class TopicSubscriptionJob {
+
+    enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String topic;
+    private final boolean subscribe;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedNanos;
+    private volatile LocalDateTime startedAt;
+    private volatile long finishedNanos;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    TopicSubscriptionJob(String topic, boolean subscribe) {
+        this.topic = topic;
+        this.subscribe = subscribe;
+    }
+
+    String id() {
+        return id;
+    }
+
+    String topic() {
+        return topic;
+    }
+
+    boolean subscribe() {
+        return subscribe;
+    }
+
+    void start() {
+        startedNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    void record(int tokens, int successCount, int failureCount) {
+        processed.addAndGet(tokens);
+        succeeded.addAndGet(successCount);
+        failed.addAndGet(failureCount);
+    }
+
+    void finish(State finalState, String error) {
+        this.error = error;
+        this.finishedNanos = System.nanoTime();
+        this.finishedAt = LocalDateTime.now();
+        this.state = finalState;
+    }
+
+    TopicSubscriptionProgress progress() {
+        long processedCount = processed.get();
+        long endNanos = finishedAt == null ? System.nanoTime() : finishedNanos;
+        double elapsedSeconds = startedAt == null ? 0 : (endNanos - startedNanos) / 1_000_000_000.0;
+        double throughput = elapsedSeconds > 0 ? processedCount / elapsedSeconds : 0;
+        return new TopicSubscriptionProgress(id, topic, subscribe ? "SUBSCRIBE" : "UNSUBSCRIBE", state.name(),
+                processedCount, succeeded.get(), failed.get(), throughput, startedAt, finishedAt, error);
+    }
+}
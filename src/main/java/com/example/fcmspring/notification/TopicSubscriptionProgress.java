@@ -0,0 +1,31 @@
+package com.example.fcmspring.notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * 토픽 구독(해지) 작업의 진행 상황입니다.
+ *
+ * @param jobId           작업 ID
+ * @param topic           토픽 이름
+ * @param action          SUBSCRIBE 또는 UNSUBSCRIBE
+ * @param state           QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+ * @param processed       지금까지 FCM에 보낸 토큰 수
+ * @param succeeded       구독(해지)에 성공한 토큰 수
+ * @param failed          구독(해지)에 실패한 토큰 수
+ * @param tokensPerSecond 시작 이후 평균 처리량 (초당 토큰 수)
+ * @param startedAt       시작 시간 (아직 시작 전이면 null)
+ * @param finishedAt      종료 시간 (아직 진행 중이면 null)
+ * @param error           작업이 실패한 경우 그 원인
+ */
+public record TopicSubscriptionProgress(String jobId,
+                                        String topic,
+                                        String action,
+                                        String state,
+                                        long processed,
+                                        long succeeded,
+                                        long failed,
+                                        double tokensPerSecond,
+                                        LocalDateTime startedAt,
+                                        LocalDateTime finishedAt,
+                                        String error) {
+}
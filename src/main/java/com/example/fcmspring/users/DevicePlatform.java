@@ -0,0 +1,10 @@
+package com.example.fcmspring.users;
+
+/**
+ * FCM 토큰을 등록한 기기의 플랫폼입니다.
+ */
+public enum DevicePlatform {
+    ANDROID,
+    IOS,
+    WEB
+}
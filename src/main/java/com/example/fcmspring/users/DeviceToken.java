@@ -0,0 +1,51 @@
+package com.example.fcmspring.users;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사용자의 기기 한 대에 발급된 FCM 토큰입니다.
+ * 사용자 한 명이 여러 기기를 쓸 수 있으므로 User의 fcmToken 한 칸 대신 기기마다 한 행씩 저장합니다.
+ */
+@Entity
+@Table(name = "device_tokens",
+        // 토큰은 기기 하나를 가리키므로 전체에서 고유합니다. 다른 사용자가 같은 기기로 로그인하면 소유자가 바뀝니다.
+        uniqueConstraints = @UniqueConstraint(name = "uk_device_tokens_token", columnNames = "token"),
+        // 알림을 보낼 때 수신자의 토큰 목록을 (user_id, token) 인덱스만으로 읽을 수 있도록 합니다. (테이블 접근 없음)
+        indexes = @Index(name = "idx_device_tokens_user_token", columnList = "user_id, token"))
+@Data
+@NoArgsConstructor
+public class DeviceToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 512)
+    private String token;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private DevicePlatform platform;
+
+    // 기기가 마지막으로 토큰을 등록(갱신)한 시간. 오래 갱신되지 않은 토큰을 정리할 때 사용합니다.
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public DeviceToken(Long userId, String token, DevicePlatform platform, LocalDateTime now) {
+        this.userId = userId;
+        this.token = token;
+        this.platform = platform;
+        this.lastSeenAt = now;
+        this.createdAt = now;
+    }
+}
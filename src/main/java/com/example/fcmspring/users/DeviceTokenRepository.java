@@ -0,0 +1,44 @@
+package com.example.fcmspring.users;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DeviceToken 엔티티에 대한 데이터 접근을 담당하는 리포지토리 인터페이스입니다.
+ */
+public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long> {
+
+    // 한 사용자의 모든 기기 토큰을 조회합니다. (user_id, token) 인덱스만으로 처리되는 쿼리 한 번입니다.
+    @Query("SELECT d.token FROM DeviceToken d WHERE d.userId = :userId")
+    List<String> findTokensByUserId(@Param("userId") Long userId);
+
+    // 이미 등록된 토큰이면 소유자, 플랫폼, 마지막 확인 시간을 갱신합니다. 등록되지 않은 토큰이면 0을 반환합니다.
+    @Modifying
+    @Query("UPDATE DeviceToken d SET d.userId = :userId, d.platform = :platform, d.lastSeenAt = :now " +
+            "WHERE d.token = :token")
+    int touch(@Param("token") String token,
+              @Param("userId") Long userId,
+              @Param("platform") DevicePlatform platform,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM DeviceToken d WHERE d.userId = :userId AND d.token = :token")
+    int deleteByUserIdAndToken(@Param("userId") Long userId, @Param("token") String token);
+
+    // 더 이상 유효하지 않은 토큰을 한 번에 지웁니다.
+    @Modifying
+    @Query("DELETE FROM DeviceToken d WHERE d.token IN :tokens")
+    int deleteByTokens(@Param("tokens") Collection<String> tokens);
+
+    // 커서(afterId) 다음의 토큰을 ID 순서로 limit개 조회합니다. 기본 키 인덱스를 따라 읽으므로 OFFSET처럼 뒤로 갈수록 느려지지 않습니다.
+    @Query("SELECT new com.example.fcmspring.users.TokenRow(d.id, d.token) FROM DeviceToken d " +
+            "WHERE d.id > :afterId ORDER BY d.id")
+    List<TokenRow> findTokensAfter(@Param("afterId") Long afterId, Limit limit);
+}
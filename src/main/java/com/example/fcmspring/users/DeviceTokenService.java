@@ -0,0 +1,137 @@
+package com.example.fcmspring.users;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 사용자별 기기 토큰(멀티 디바이스) 등록과 조회를 담당하는 서비스 클래스입니다.
+ */
+@Service
+public class DeviceTokenService {
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+
+    public DeviceTokenService(DeviceTokenRepository deviceTokenRepository,
+                              UserRepository userRepository,
+                              UserService userService) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+    }
+
+    /**
+     * 기기 토큰을 등록합니다. 이미 등록된 토큰이면 소유자와 마지막 확인 시간만 갱신합니다.
+     * 언어 태그가 함께 오면 사용자의 알림 언어도 갱신합니다. (가장 최근에 등록한 기기의 언어를 따릅니다)
+     *
+     * @param username 사용자 이름
+     * @param token    기기의 FCM 토큰
+     * @param platform 기기 플랫폼
+     * @param locale   기기의 언어 태그 (예: "ko", "en-US". 없으면 null)
+     * @throws IllegalArgumentException 사용자가 존재하지 않거나 언어 태그가 올바르지 않은 경우
+     */
+    @Transactional
+    public void registerDevice(String username, String token, DevicePlatform platform, String locale) {
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다: " + username));
+        LocalDateTime now = LocalDateTime.now();
+        // 대부분의 요청은 앱 실행 시 같은 토큰을 다시 등록하는 경우이므로 UPDATE를 먼저 시도합니다.
+        if (deviceTokenRepository.touch(token, userId, platform, now) == 0) {
+            deviceTokenRepository.save(new DeviceToken(userId, token, platform, now));
+        }
+        if (locale != null && !locale.isBlank()) {
+            userService.updateLocale(userId, normalizeLocale(locale));
+        }
+    }
+
+    // "en_us", "EN-us" 같은 표기를 "en-US"로 맞춥니다.
+    private static String normalizeLocale(String locale) {
+        String tag = Locale.forLanguageTag(locale.trim().replace('_', '-')).toLanguageTag();
+        if ("und".equals(tag) || tag.length() > 16) {
+            throw new IllegalArgumentException("올바르지 않은 언어 태그입니다: " + locale);
+        }
+        return tag;
+    }
+
+    /**
+     * 기기 토큰 등록을 해제합니다. (로그아웃 등)
+     *
+     * @return 해제된 토큰이 있었으면 true
+     * @throws IllegalArgumentException 사용자가 존재하지 않는 경우
+     */
+    @Transactional
+    public boolean unregisterDevice(String username, String token) {
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다: " + username));
+        return deviceTokenRepository.deleteByUserIdAndToken(userId, token) > 0;
+    }
+
+    /**
+     * 알림을 보낼 사용자의 모든 기기 토큰을 조회합니다.
+     * device_tokens 테이블의 토큰과, 아직 기기 등록 API로 옮겨오지 않은 기존 users.fcm_token을 합쳐서 돌려줍니다.
+     * 복제본에서 읽으면 방금 등록된 토큰을 놓치거나 이미 지운 토큰으로 다시 보낼 수 있으므로, 읽기 전용 트랜잭션 없이 primary에서 읽습니다.
+     *
+     * @param userView 알림을 받을 사용자
+     * @return 중복 없는 토큰 목록 (등록된 토큰이 없으면 빈 목록)
+     */
+    @Transactional
+    public List<String> findTokens(UserTokenView userView) {
+        Set<String> tokens = new LinkedHashSet<>(deviceTokenRepository.findTokensByUserId(userView.id()));
+        if (userView.hasFcmToken()) {
+            tokens.add(userView.fcmToken());
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * 더 이상 유효하지 않은 토큰들을 기기 토큰 목록과 사용자 정보(users.fcm_token)에서 모두 지웁니다.
+     *
+     * @param tokens 지울 FCM 토큰 목록
+     * @return 지워진 토큰 수
+     */
+    @Transactional
+    public int removeTokens(Collection<String> tokens) {
+        int deleted = deviceTokenRepository.deleteByTokens(tokens);
+        return deleted + userService.clearFcmTokens(tokens);
+    }
+
+    /**
+     * 등록된 모든 FCM 토큰을 batchSize개씩 나누어 consumer에 넘깁니다. (device_tokens, 그다음 users.fcm_token)
+     * 한 트랜잭션으로 전체를 읽지 않고 ID 커서로 페이지마다 짧게 조회하므로,
+     * consumer가 FCM 호출처럼 오래 걸리는 작업을 해도 DB 커넥션을 붙잡고 있지 않습니다.
+     * 두 테이블에 같은 토큰이 있으면 두 번 넘어갈 수 있습니다.
+     *
+     * @param batchSize 한 번에 넘길 최대 토큰 수
+     * @param consumer  토큰 묶음을 처리할 함수
+     */
+    public void forEachTokenBatch(int batchSize, Consumer<List<String>> consumer) {
+        forEachPage(afterId -> deviceTokenRepository.findTokensAfter(afterId, Limit.of(batchSize)), batchSize, consumer);
+        forEachPage(afterId -> userRepository.findFcmTokensAfter(afterId, Limit.of(batchSize)), batchSize, consumer);
+    }
+
+    private static void forEachPage(Function<Long, List<TokenRow>> pageLoader, int batchSize, Consumer<List<String>> consumer) {
+        long afterId = 0L;
+        while (true) {
+            List<TokenRow> page = pageLoader.apply(afterId);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page.stream().map(TokenRow::token).toList());
+            if (page.size() < batchSize) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).id();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.fcmspring.users;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FCM 토큰 갱신 요청을 모아서 주기적으로 JDBC 배치 UPDATE로 반영하는 쓰기 병합(coalescing) 버퍼입니다.
+ * 같은 사용자의 갱신 요청이 여러 번 들어오면 마지막 토큰 하나만 남기므로,
+ * 앱 업데이트 직후처럼 갱신 요청이 몰릴 때 DB 쓰기 횟수를 크게 줄일 수 있습니다.
+ * <p>
+ * user.fcm-token.coalescing.enabled=true 일 때만 등록됩니다.
+ * 요청은 바로 성공으로 응답하므로, 존재하지 않는 사용자에 대한 갱신은 오류 없이 무시됩니다.
+ */
+@Component
+@ConditionalOnProperty(name = "user.fcm-token.coalescing.enabled", havingValue = "true")
+public class FcmTokenWriteBuffer {
+
+    // 토큰이 실제로 바뀐 경우에만 UPDATE 합니다. UserRepository.updateFcmTokenIfChanged와 같은 조건입니다.
+    private static final String UPDATE_SQL =
+            "UPDATE users SET fcm_token = ?, updated_at = ? WHERE username = ? AND (fcm_token IS NULL OR fcm_token <> ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final UserTokenCache userTokenCache;
+    private final int batchSize;
+
+    // 사용자 이름 → 마지막으로 받은 토큰
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    public FcmTokenWriteBuffer(JdbcTemplate jdbcTemplate,
+                               UserRepository userRepository,
+                               UserTokenCache userTokenCache,
+                               @Value("${user.fcm-token.coalescing.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.userTokenCache = userTokenCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 토큰 갱신 요청을 버퍼에 넣습니다. 이미 같은 사용자의 요청이 있으면 새 토큰으로 덮어씁니다.
+     */
+    public void submit(String username, String fcmToken) {
+        pending.put(username, fcmToken);
+    }
+
+    /**
+     * 버퍼에 쌓인 갱신 요청을 batch-size 단위의 JDBC 배치로 반영합니다.
+     */
+    @Scheduled(fixedDelayString = "${user.fcm-token.coalescing.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 키를 하나씩 remove 하면서 꺼내므로, 꺼내는 도중 들어온 새 요청은 다음 flush에서 처리됩니다.
+        List<String[]> drained = new ArrayList<>();
+        for (String username : pending.keySet()) {
+            String token = pending.remove(username);
+            if (token != null) {
+                drained.add(new String[]{username, token});
+            }
+        }
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            writeBatch(drained.subList(from, Math.min(from + batchSize, drained.size())));
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBatch(List<String[]> entries) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (String[] entry : entries) {
+            args.add(new Object[]{entry[1], now, entry[0], entry[1]});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+
+        // 실제로 바뀐 사용자만 캐시에서 제거합니다. (드라이버가 개수를 알려주지 않으면(-2) 바뀐 것으로 간주합니다)
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                changed.add(entries.get(i)[0]);
+            }
+        }
+        if (!changed.isEmpty()) {
+            userTokenCache.invalidateAll(userRepository.findIdsByUsernames(changed));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.fcmspring.users;
+
+/**
+ * 토큰 목록을 ID 순서로 나누어 읽을 때(keyset 페이지네이션) 사용하는 행입니다.
+ *
+ * @param id    다음 페이지를 읽을 때 커서로 사용할 행 ID
+ * @param token FCM 토큰
+ */
+public record TokenRow(Long id, String token) {
+}
@@ -7,7 +7,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users") // 데이터베이스 테이블 이름을 'users'로 지정합니다.
+@Table(name = "users", // 데이터베이스 테이블 이름을 'users'로 지정합니다.
+        // 전송에 실패한 토큰을 정리할 때 토큰 값으로 사용자를 찾으므로 인덱스를 만듭니다.
+        indexes = @Index(name = "idx_users_fcm_token", columnList = "fcm_token"))
 @Data
 @NoArgsConstructor
 public class User {
@@ -26,6 +28,10 @@ public class User {
     @Column(name = "fcm_token")
     private String fcmToken;
 
+    // 알림 문구에 사용할 언어 태그 (예: "ko", "en-US"). 기기 등록 시 앱이 보내며, 없으면 기본 언어로 보냅니다.
+    @Column(length = 16)
+    private String locale;
+
     // 사용자 정보가 생성된 시간
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
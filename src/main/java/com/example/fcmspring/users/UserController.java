@@ -1,26 +1,80 @@
 package com.example.fcmspring.users;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Locale;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final DeviceTokenService deviceTokenService;
+    // 쓰기 병합 버퍼는 user.fcm-token.coalescing.enabled=true 일 때만 등록되므로 ObjectProvider로 주입받습니다.
+    private final ObjectProvider<FcmTokenWriteBuffer> fcmTokenWriteBuffer;
 
     @PutMapping("/api/users/{username}/fcm-token")
     public ResponseEntity<Void> updateUserFcmToken(
             @PathVariable String username,
             @RequestBody Map<String, String> payload) {
-        System.out.println(username);
+        log.debug("FCM 토큰 갱신 요청. username={}", username);
         String fcmToken = payload.get("fcmToken");
+        FcmTokenWriteBuffer buffer = fcmTokenWriteBuffer.getIfAvailable();
+        if (buffer != null) {
+            // 버퍼에 넣고 바로 응답합니다. 실제 반영은 버퍼가 주기적으로 모아서 처리합니다.
+            buffer.submit(username, fcmToken == null ? "" : fcmToken);
+            return ResponseEntity.accepted().build();
+        }
         userService.updateFcmToken(username, fcmToken);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * 기기 토큰을 등록합니다. 사용자는 여러 기기를 등록할 수 있으며, 알림은 등록된 모든 기기로 전송됩니다.
+     * 요청 본문: {"token": "...", "platform": "ANDROID" | "IOS" | "WEB", "locale": "ko"}
+     * locale은 선택 항목이며, 알림 문구를 고를 때 사용합니다.
+     */
+    @PostMapping("/api/users/{username}/devices")
+    public ResponseEntity<?> registerDevice(
+            @PathVariable String username,
+            @RequestBody Map<String, String> payload) {
+        String token = payload.get("token");
+        String platform = payload.get("platform");
+        if (token == null || token.isBlank() || platform == null) {
+            return ResponseEntity.badRequest().body("token과 platform이 필요합니다.");
+        }
+        try {
+            deviceTokenService.registerDevice(username, token, DevicePlatform.valueOf(platform.toUpperCase(Locale.ROOT)),
+                    payload.get("locale"));
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 기기 토큰 등록을 해제합니다. (로그아웃 등) 토큰은 경로에 넣기 어려운 문자를 포함할 수 있어 쿼리 파라미터로 받습니다.
+     */
+    @DeleteMapping("/api/users/{username}/devices")
+    public ResponseEntity<?> unregisterDevice(
+            @PathVariable String username,
+            @RequestParam String token) {
+        try {
+            boolean removed = deviceTokenService.unregisterDevice(username, token);
+            return removed ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
@@ -1,8 +1,15 @@
 package com.example.fcmspring.users;
 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,4 +23,49 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // SELECT u FROM User u WHERE u.username = :username
     Optional<User> findByUsername(String username);
 
-}
\ No newline at end of file
+    // 사용자 이름으로 ID만 조회합니다. 엔티티 전체를 읽지 않으므로 username 유니크 인덱스만으로 처리됩니다.
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // 여러 사용자 이름에 해당하는 ID를 한 번에 조회합니다.
+    @Query("SELECT u.id FROM User u WHERE u.username IN :usernames")
+    List<Long> findIdsByUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 토큰이 실제로 바뀐 경우에만 UPDATE 합니다. 토큰이 같으면 아무 행도 바뀌지 않고 0을 반환합니다.
+    // 엔티티를 읽어서 변경 감지(dirty checking)하는 방식과 달리 SELECT 없이 한 문장으로 끝납니다.
+    // 벌크 UPDATE는 @PreUpdate가 호출되지 않으므로 updatedAt을 직접 지정합니다.
+    @Modifying
+    @Query("UPDATE User u SET u.fcmToken = :fcmToken, u.updatedAt = :now " +
+            "WHERE u.username = :username AND (u.fcmToken IS NULL OR u.fcmToken <> :fcmToken)")
+    int updateFcmTokenIfChanged(@Param("username") String username,
+                                @Param("fcmToken") String fcmToken,
+                                @Param("now") LocalDateTime now);
+
+    // 언어 태그가 실제로 바뀐 경우에만 UPDATE 합니다. (기기 등록은 앱을 실행할 때마다 들어오므로 대부분 0을 반환합니다)
+    @Modifying
+    @Query("UPDATE User u SET u.locale = :locale, u.updatedAt = :now " +
+            "WHERE u.id = :id AND (u.locale IS NULL OR u.locale <> :locale)")
+    int updateLocaleIfChanged(@Param("id") Long id,
+                              @Param("locale") String locale,
+                              @Param("now") LocalDateTime now);
+
+    // 주어진 FCM 토큰을 가진 사용자의 ID를 조회합니다. (fcm_token 인덱스 사용)
+    @Query("SELECT u.id FROM User u WHERE u.fcmToken IN :fcmTokens")
+    List<Long> findIdsByFcmTokens(@Param("fcmTokens") Collection<String> fcmTokens);
+
+    // 더 이상 유효하지 않은 FCM 토큰을 한 번에 지웁니다.
+    // 토큰 값으로 조건을 걸기 때문에, 그 사이 사용자가 새 토큰을 등록했다면 새 토큰은 지워지지 않습니다.
+    @Modifying
+    @Query("UPDATE User u SET u.fcmToken = '', u.updatedAt = :now WHERE u.fcmToken IN :fcmTokens")
+    int clearFcmTokens(@Param("fcmTokens") Collection<String> fcmTokens, @Param("now") LocalDateTime now);
+
+    // 주어진 ID 중 실제로 존재하는 사용자의 ID만 한 번의 쿼리로 조회합니다.
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // 커서(afterId) 다음의 사용자 중 FCM 토큰이 등록된 사용자의 토큰을 ID 순서로 limit개 조회합니다.
+    @Query("SELECT new com.example.fcmspring.users.TokenRow(u.id, u.fcmToken) FROM User u " +
+            "WHERE u.id > :afterId AND u.fcmToken IS NOT NULL AND u.fcmToken <> '' ORDER BY u.id")
+    List<TokenRow> findFcmTokensAfter(@Param("afterId") Long afterId, Limit limit);
+
+}
@@ -1,21 +1,72 @@
 package com.example.fcmspring.users;
 
+import com.example.fcmspring._core.logging.LogSampler;
+import com.example.fcmspring._core.metrics.TransactionTimer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 사용자(User) 관련 비즈니스 로직을 처리하는 서비스 클래스입니다.
  */
+@Slf4j
 @Service // 이 클래스를 Spring의 서비스 계층 빈으로 등록합니다.
 public class UserService {
 
+    // IN 쿼리 하나에 넣을 최대 ID 개수
+    private static final int IN_QUERY_CHUNK_SIZE = 1000;
+    // 토큰 갱신 로그는 앱 실행마다 남으므로 샘플링합니다.
+    private static final String TOKEN_UPDATED_EVENT = "user.fcm-token.updated";
+
     private final UserRepository userRepository;
+    private final UserTokenCache userTokenCache;
+    private final LogSampler logSampler;
+    // 사용자 이름 → ID. 사용자 이름은 바뀌지 않고 사용자는 삭제되지 않으므로 만료 없이 캐시합니다.
+    // 토큰 갱신이 몰려도(앱 업데이트 직후 등) 조건부 UPDATE 한 문장만 실행되도록, ID 조회를 캐시로 대신합니다.
+    private final Cache<String, Long> userIdByUsername;
+    // 토큰 캐시에 넣을 값을 primary에서 읽기 위한 (읽기 전용이 아닌) 트랜잭션
+    private final TransactionTemplate primaryReadTransaction;
+
+    // 토큰 갱신 트랜잭션 시간과, 실제로 토큰이 바뀌었는지 여부별 갱신 횟수를 기록합니다.
+    private final TransactionTimer tokenUpdateTimer;
+    private final Counter tokenChangedCounter;
+    private final Counter tokenUnchangedCounter;
 
-    // 생성자를 통해 UserRepository를 주입받습니다.
-    public UserService(UserRepository userRepository) {
+    // 생성자를 통해 UserRepository와 UserTokenCache를 주입받습니다.
+    public UserService(UserRepository userRepository, UserTokenCache userTokenCache, LogSampler logSampler,
+                       MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+                       @Value("${user.cache.max-size:100000}") long idCacheMaxSize) {
         this.userRepository = userRepository;
+        this.userTokenCache = userTokenCache;
+        this.logSampler = logSampler;
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+        this.userIdByUsername = Caffeine.newBuilder()
+                .maximumSize(idCacheMaxSize)
+                .build();
+        this.tokenUpdateTimer = new TransactionTimer(meterRegistry, "user.fcm.token.transaction",
+                "FCM 토큰 갱신 트랜잭션 시간 (커밋 포함)", "update");
+        this.tokenChangedCounter = Counter.builder("user.fcm.token.updates")
+                .description("FCM 토큰 갱신 요청 수")
+                .tag("changed", "true")
+                .register(meterRegistry);
+        this.tokenUnchangedCounter = Counter.builder("user.fcm.token.updates")
+                .description("FCM 토큰 갱신 요청 수")
+                .tag("changed", "false")
+                .register(meterRegistry);
     }
 
     /**
@@ -29,14 +80,103 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * 알림 전송에 필요한 사용자 정보(ID, 이름, FCM 토큰)를 캐시를 통해 조회합니다.
+     * 캐시에 없을 때만 DB를 조회하므로, 알림 경로처럼 같은 사용자를 반복해서 찾는 곳에서 사용합니다.
+     * 토큰이 바뀐 직후 복제본에서 이전 토큰을 읽어 캐시에 넣지 않도록, 캐시에 없을 때의 조회는 읽기-쓰기 트랜잭션 안에서 primary로 보냅니다.
+     * (findById는 Spring Data의 읽기 전용 트랜잭션으로 실행되지만, 이미 시작된 트랜잭션에 참여하면 읽기 전용 표시가 바뀌지 않습니다)
+     *
+     * @param id 조회할 사용자의 ID
+     * @return 조회된 UserTokenView를 담은 Optional. 없으면 빈 Optional을 반환합니다.
+     */
+    public Optional<UserTokenView> findTokenView(Long id) {
+        return Optional.ofNullable(userTokenCache.get(id, key -> primaryReadTransaction.execute(
+                status -> userRepository.findById(key).map(UserTokenView::from).orElse(null))));
+    }
+
+    /**
+     * 주어진 사용자 ID 중 실제로 존재하는 ID만 골라냅니다.
+     * 사용자마다 조회하지 않고 IN 쿼리로 한 번에(ID가 많으면 1000개씩 나누어) 확인합니다.
+     *
+     * @param ids 확인할 사용자 ID 목록
+     * @return 존재하는 사용자 ID 집합
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        List<Long> idList = List.copyOf(ids);
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < idList.size(); from += IN_QUERY_CHUNK_SIZE) {
+            existing.addAll(userRepository.findExistingIds(idList.subList(from, Math.min(from + IN_QUERY_CHUNK_SIZE, idList.size()))));
+        }
+        return existing;
+    }
+
     // 여기에 나중에 사용자 생성, 수정, 삭제 등의 메소드를 추가할 수 있습니다.
 
+    /**
+     * 사용자의 FCM 토큰을 갱신합니다.
+     * 토큰이 바뀌지 않았으면 DB에 쓰지 않습니다. (앱 업데이트 후 모든 기기가 같은 토큰으로 갱신 요청을 보내는 경우 등)
+     *
+     * @param username 사용자 이름
+     * @param fcmToken 새 FCM 토큰 (null이면 토큰 없음을 뜻하는 빈 문자열로 저장합니다)
+     * @throws IllegalArgumentException 사용자가 존재하지 않는 경우
+     */
     @Transactional
     public void updateFcmToken(String username, String fcmToken) {
-        User user = userRepository.findByUsername(username)
+        tokenUpdateTimer.start();
+        String token = fcmToken == null ? "" : fcmToken;
+        // 1. 토큰이 다를 때만 바꾸는 조건부 UPDATE 한 문장으로 처리합니다.
+        int updated = userRepository.updateFcmTokenIfChanged(username, token, LocalDateTime.now());
+        // 2. 사용자 존재 여부 확인(바뀐 행이 없을 때)과 캐시 무효화(바뀌었을 때)에 쓸 ID를 찾습니다.
+        //    처음 한 번만 DB에서 읽고 이후에는 캐시에서 찾으므로, 토큰이 그대로인 갱신은 UPDATE 한 문장으로 끝납니다.
+        Long userId = findIdByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다: " + username));
-        user.setFcmToken(fcmToken); // 사용자의 fcmToken 필드를 업데이트
-        userRepository.save(user);
-        System.out.println(username + "님의 FCM 토큰이 업데이트되었습니다.");
+        if (updated == 0) {
+            tokenUnchangedCounter.increment();
+            return; // 토큰이 그대로이므로 캐시도 그대로 둡니다.
+        }
+        tokenChangedCounter.increment();
+        // 캐시에 남아있는 이전 토큰으로 알림이 가지 않도록 커밋 후 캐시 항목을 제거합니다.
+        userTokenCache.invalidateAfterCommit(userId);
+        if (logSampler.sample(TOKEN_UPDATED_EVENT)) {
+            log.info("FCM 토큰이 업데이트되었습니다. username={} (sampled 1/{})", username, logSampler.intervalOf(TOKEN_UPDATED_EVENT));
+        }
+    }
+
+    /**
+     * 알림 문구에 사용할 사용자의 언어를 바꿉니다. 바뀐 경우에만 DB에 쓰고, 커밋 후 캐시 항목을 제거합니다.
+     *
+     * @param userId 사용자 ID
+     * @param locale 언어 태그 (예: "ko", "en-US")
+     */
+    @Transactional
+    public void updateLocale(Long userId, String locale) {
+        if (userRepository.updateLocaleIfChanged(userId, locale, LocalDateTime.now()) > 0) {
+            userTokenCache.invalidateAfterCommit(userId);
+        }
+    }
+
+    // 없는 사용자는 캐시하지 않으므로, 나중에 가입한 사용자도 찾을 수 있습니다.
+    private Optional<Long> findIdByUsername(String username) {
+        return Optional.ofNullable(userIdByUsername.get(username,
+                key -> userRepository.findIdByUsername(key).orElse(null)));
+    }
+
+    /**
+     * 더 이상 유효하지 않은 FCM 토큰들을 사용자 정보에서 지웁니다.
+     * 지운 사용자의 캐시 항목은 커밋 후 제거되어, 이후 알림은 토큰이 없는 것으로 처리됩니다.
+     *
+     * @param fcmTokens 지울 FCM 토큰 목록
+     * @return 토큰이 지워진 사용자 수
+     */
+    @Transactional
+    public int clearFcmTokens(Collection<String> fcmTokens) {
+        List<Long> userIds = userRepository.findIdsByFcmTokens(fcmTokens);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        int cleared = userRepository.clearFcmTokens(fcmTokens, LocalDateTime.now());
+        userTokenCache.invalidateAllAfterCommit(userIds);
+        return cleared;
     }
 }
@@ -0,0 +1,88 @@
+package com.example.fcmspring.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * 사용자 ID로 UserTokenView를 찾는 프로세스 내부(in-process) 캐시입니다.
+ * 친구 요청 한 건마다 같은 사용자를 여러 번 기본 키로 조회하던 것을 캐시로 대신하여 DB 부하를 줄입니다.
+ * <p>
+ * 최대 개수와 TTL을 넘긴 항목은 자동으로 제거되며, 적중/실패/제거 횟수는
+ * Micrometer의 cache.gets, cache.evictions 지표(cache=userTokens)로 확인할 수 있습니다.
+ */
+@Component
+public class UserTokenCache {
+
+    private final Cache<Long, UserTokenView> cache;
+
+    public UserTokenCache(MeterRegistry meterRegistry,
+                          @Value("${user.cache.max-size:100000}") long maxSize,
+                          @Value("${user.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // 다른 인스턴스에서 토큰이 바뀐 경우에도 이 시간이 지나면 DB에서 다시 읽어옵니다.
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userTokens");
+    }
+
+    /**
+     * 캐시에서 사용자를 찾고, 없으면 loader로 읽어와 캐시에 저장합니다.
+     * loader가 null을 반환하면(사용자가 없으면) 캐시에 저장하지 않습니다.
+     */
+    public UserTokenView get(Long id, Function<Long, UserTokenView> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤에 해당 사용자의 캐시 항목을 제거합니다.
+     * 커밋 전에 제거하면, 그 사이에 다른 스레드가 아직 커밋되지 않은 이전 값을 다시 읽어와 캐시할 수 있기 때문입니다.
+     * 트랜잭션 밖에서 호출되면 즉시 제거합니다.
+     */
+    public void invalidateAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(id);
+            }
+        });
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤에 여러 사용자의 캐시 항목을 한 번에 제거합니다.
+     */
+    public void invalidateAllAfterCommit(Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(ids);
+            }
+        });
+    }
+
+    /**
+     * 여러 사용자의 캐시 항목을 즉시 제거합니다. 트랜잭션 밖에서 이미 반영된 변경(JDBC 배치 등)에 사용합니다.
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.fcmspring.users;
+
+/**
+ * 알림 전송에 필요한 사용자 정보만 담은 가벼운 읽기 전용 객체입니다.
+ * User 엔티티 전체 대신 이 객체를 캐시에 보관하여 메모리 사용량을 줄입니다.
+ *
+ * @param id       사용자 ID
+ * @param username 사용자 이름
+ * @param fcmToken FCM 기기 토큰 (등록되지 않았으면 null 또는 빈 문자열)
+ * @param locale   알림 문구에 사용할 언어 태그 (없으면 null)
+ */
+public record UserTokenView(Long id, String username, String fcmToken, String locale) {
+
+    public static UserTokenView from(User user) {
+        return new UserTokenView(user.getId(), user.getUsername(), user.getFcmToken(), user.getLocale());
+    }
+
+    public boolean hasFcmToken() {
+        return fcmToken != null && !fcmToken.isEmpty();
+    }
+}
@@ -2,8 +2,11 @@ package com.example.fcmspring;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+// FCM 시뮬레이터를 사용하므로 env/service-account.json 없이도 컨텍스트를 띄울 수 있습니다.
 @SpringBootTest
+@ActiveProfiles("simulator")
 class FcmSpringApplicationTests {
 
     @Test
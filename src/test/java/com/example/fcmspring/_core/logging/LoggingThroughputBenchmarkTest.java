@@ -0,0 +1,135 @@
+package com.example.fcmspring._core.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 요청 스레드 여러 개가 동시에 로그를 남길 때, 기존 방식(System.out.println)과 SLF4J + 비동기 appender의 처리량을 비교합니다.
+ * 콘솔 대신 같은 조건의 파일에 쓰며, 세 가지 경우를 측정합니다.
+ * <p>
+ * - println  : 줄마다 flush 하는 PrintStream. System.out과 같이 모든 스레드가 하나의 잠금을 두고 경쟁합니다.
+ * - async    : logback-spring.xml과 같은 AsyncAppender. 요청 스레드는 큐에 넣기만 하고 쓰기는 별도 스레드가 합니다.
+ * - sampled  : async에 LogSampler(1/100)를 더한 경우. FCM 전송 성공처럼 대량으로 발생하는 이벤트에 해당합니다.
+ * <p>
+ * ./gradlew benchmark 로 실행합니다.
+ */
+@Tag("benchmark")
+class LoggingThroughputBenchmarkTest {
+
+    private static final int THREADS = 32;
+    private static final int EVENTS_PER_THREAD = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void asyncLoggingIsFasterThanSystemOut() throws Exception {
+        long printlnNanos;
+        try (PrintStream out = new PrintStream(new FileOutputStream(dir.resolve("println.log").toFile()), true, StandardCharsets.UTF_8)) {
+            run(i -> out.println("Successfully sent message to FCM: projects/bench/messages/" + i)); // JIT 예열
+            printlnNanos = run(i -> out.println("Successfully sent message to FCM: projects/bench/messages/" + i));
+        }
+
+        LoggerContext context = new LoggerContext();
+        Logger log = asyncLogger(context, dir.resolve("async.log"));
+        LogSampler sampler = new LogSampler("fcm.send.success=100");
+        long asyncNanos;
+        long sampledNanos;
+        try {
+            run(i -> log.info("Successfully sent message to FCM: messageId={}", "projects/bench/messages/" + i));
+            asyncNanos = run(i -> log.info("Successfully sent message to FCM: messageId={}", "projects/bench/messages/" + i));
+            sampledNanos = run(i -> {
+                if (sampler.sample("fcm.send.success")) {
+                    log.info("Successfully sent message to FCM: messageId={}", "projects/bench/messages/" + i);
+                }
+            });
+        } finally {
+            context.stop(); // 큐에 남은 로그를 모두 쓴 뒤 종료합니다.
+        }
+
+        int events = THREADS * EVENTS_PER_THREAD;
+        report("println", events, printlnNanos);
+        report("async  ", events, asyncNanos);
+        report("sampled", events, sampledNanos);
+        System.out.printf("[benchmark] speedup : async %.1fx, sampled %.1fx%n",
+                (double) printlnNanos / asyncNanos, (double) printlnNanos / sampledNanos);
+
+        assertThat(sampledNanos).isLessThan(printlnNanos);
+    }
+
+    /**
+     * 운영 설정과 같이 AsyncAppender로 감싼 로거를 만듭니다.
+     * 측정 중 로그가 버려지면 비교가 공정하지 않으므로 neverBlock은 끄고, 큐가 가득 차면 기다리게 합니다.
+     */
+    private static Logger asyncLogger(LoggerContext context, Path file) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{39} : %m%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(false);
+        async.addAppender(fileAppender);
+        async.start();
+
+        Logger logger = context.getLogger("benchmark");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        return logger;
+    }
+
+    private static long run(IntConsumer logOnce) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            long start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                        logOnce.accept(i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String name, int events, long nanos) {
+        System.out.printf("[benchmark] %s: %d events in %.1f ms (%.0f events/s)%n",
+                name, events, nanos / 1e6, events / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.fcmspring.friends;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 단건 친구 요청 API를 N번 호출하는 경우와 대량 친구 요청 API를 한 번 호출하는 경우의 처리 시간을 비교합니다.
+ * ./gradlew benchmark 로 실행합니다.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "notification.outbox.poll-interval-ms=3600000", // 측정 중에는 아웃박스 드레이너가 끼어들지 않도록 합니다.
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("simulator") // 실제 Firebase 자격 증명 없이 실행할 수 있도록 FCM 시뮬레이터를 사용합니다.
+class FriendRequestBulkBenchmarkTest {
+
+    private static final int RECIPIENTS = 2000;
+
+    @Autowired
+    FriendRequestService friendRequestService;
+    @Autowired
+    IdempotentFriendRequestSender idempotentFriendRequestSender;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkInsertIsFasterThanPerCallPath() {
+        List<Long> recipients = createUsers(RECIPIENTS);
+        // 요청자 1번과 2번은 db/01-users-data.sql로 미리 생성되어 있습니다.
+        Long perCallRequester = 1L;
+        Long bulkRequester = 2L;
+
+        // JIT와 커넥션 풀을 데우기 위해 일부를 먼저 실행합니다.
+        for (Long recipientId : recipients.subList(0, 100)) {
+            idempotentFriendRequestSender.send(perCallRequester, recipientId, null);
+        }
+        friendRequestService.sendFriendRequests(bulkRequester, recipients.subList(0, 100));
+
+        List<Long> measured = recipients.subList(100, recipients.size());
+
+        long perCallStart = System.nanoTime();
+        for (Long recipientId : measured) {
+            idempotentFriendRequestSender.send(perCallRequester, recipientId, null);
+        }
+        long perCallNanos = System.nanoTime() - perCallStart;
+
+        long bulkStart = System.nanoTime();
+        BulkSendResult result = friendRequestService.sendFriendRequests(bulkRequester, measured);
+        long bulkNanos = System.nanoTime() - bulkStart;
+
+        assertThat(result.createdRequestIds()).hasSize(measured.size());
+        System.out.printf("[benchmark] per-call: %d requests in %.1f ms (%.0f req/s)%n",
+                measured.size(), perCallNanos / 1e6, measured.size() / (perCallNanos / 1e9));
+        System.out.printf("[benchmark] bulk    : %d requests in %.1f ms (%.0f req/s)%n",
+                measured.size(), bulkNanos / 1e6, measured.size() / (bulkNanos / 1e9));
+        System.out.printf("[benchmark] speedup : %.1fx%n", (double) perCallNanos / bulkNanos);
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"bench-user-" + i});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, fcm_token, created_at, updated_at) VALUES (?, '', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE username LIKE 'bench-user-%' ORDER BY id", Long.class);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.fcmspring.friends;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * FriendshipGraph의 인접 목록(정렬된 long[])이 로드, 추가, 동시 추가 후에도 정렬과 중복 제거를 유지하는지 확인합니다.
+ * DB 없이 확인하도록 저장소와 트랜잭션 매니저는 목(mock)으로 둡니다.
+ */
+class FriendshipGraphTest {
+
+    private final FriendRequestRepository friendRequestRepository = mock(FriendRequestRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FriendshipGraph(friendRequestRepository, mock(PlatformTransactionManager.class), meterRegistry, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadBuildsSortedDistinctAdjacency() {
+        // 같은 두 사람이 서로에게 보낸 요청이 모두 수락된 경우(1→2, 2→1)도 관계는 하나입니다.
+        when(friendRequestRepository.streamAcceptedPairs(anyInt())).thenReturn(Stream.of(
+                new long[]{1, 3}, new long[]{1, 2}, new long[]{2, 1}, new long[]{3, 4}));
+
+        graph.load();
+
+        assertThat(graph.friendsOf(1)).containsExactly(2, 3);
+        assertThat(graph.friendsOf(2)).containsExactly(1);
+        assertThat(graph.friendsOf(3)).containsExactly(1, 4);
+        assertThat(graph.friendsOf(4)).containsExactly(3);
+        assertThat(graph.areFriends(1, 3)).isTrue();
+        assertThat(graph.areFriends(1, 4)).isFalse();
+        assertThat(edges()).isEqualTo(3);
+        assertThat(meterRegistry.get("friend.graph.users").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void addKeepsFriendsSorted() {
+        graph.add(1, 30);
+        graph.add(1, 10);
+        graph.add(20, 1);
+
+        assertThat(graph.friendsOf(1)).containsExactly(10, 20, 30);
+        assertThat(graph.friendsOf(20)).containsExactly(1);
+        assertThat(graph.friendCount(1)).isEqualTo(3);
+        assertThat(edges()).isEqualTo(3);
+    }
+
+    @Test
+    void duplicateAddIsIgnored() {
+        graph.add(1, 2);
+        graph.add(1, 2);
+        graph.add(2, 1);
+
+        assertThat(graph.friendsOf(1)).containsExactly(2);
+        assertThat(graph.friendsOf(2)).containsExactly(1);
+        assertThat(edges()).isEqualTo(1);
+    }
+
+    @Test
+    void friendsOfReturnsCopy() {
+        graph.add(1, 2);
+
+        long[] friends = graph.friendsOf(1);
+        friends[0] = 99;
+
+        assertThat(graph.friendsOf(1)).containsExactly(2);
+        assertThat(graph.friendsOf(42)).isEmpty();
+    }
+
+    @Test
+    void mutualFriendCount() {
+        graph.add(1, 10);
+        graph.add(1, 20);
+        graph.add(1, 30);
+        graph.add(2, 20);
+        graph.add(2, 30);
+        graph.add(2, 40);
+
+        assertThat(graph.mutualFriendCount(1, 2)).isEqualTo(2);
+        assertThat(graph.mutualFriendCount(2, 1)).isEqualTo(2);
+        assertThat(graph.mutualFriendCount(1, 42)).isZero();
+    }
+
+    @Test
+    void addAfterCommitOutsideTransactionAddsImmediately() {
+        graph.addAfterCommit(1, 2);
+
+        assertThat(graph.areFriends(1, 2)).isTrue();
+    }
+
+    @Test
+    void addAfterCommitWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        graph.addAfterCommit(1, 2);
+        assertThat(graph.areFriends(1, 2)).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(graph.areFriends(1, 2)).isTrue();
+        assertThat(graph.areFriends(2, 1)).isTrue();
+    }
+
+    @Test
+    void addAfterCommitSkipsRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        graph.addAfterCommit(1, 2);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(graph.areFriends(1, 2)).isFalse();
+    }
+
+    @Test
+    void concurrentAddsToSameUserAreAllKept() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long offset = 1_000L + (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // 모든 스레드가 사용자 1의 배열을 동시에 교체합니다. 교체가 겹쳐 추가한 친구가 사라지면 안 됩니다.
+                    for (int i = 0; i < perThread; i++) {
+                        graph.add(1, offset + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long[] expected = LongStream.range(1_000L, 1_000L + (long) threads * perThread).toArray();
+        assertThat(graph.friendsOf(1)).containsExactly(expected);
+        assertThat(edges()).isEqualTo(threads * perThread);
+    }
+
+    private double edges() {
+        return meterRegistry.get("friend.graph.edges").gauge().value();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.fcmspring.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * FCM 시뮬레이터를 사용해 실제 HTTP 요청으로 API를 두드리는 종단 간(end-to-end) 부하 테스트입니다.
+ * 친구 요청 전송(아웃박스 → 배치 디스패처 → 시뮬레이터까지 포함)과 FCM 토큰 갱신 API의 처리량과 p50/p99/p999 응답 시간을 측정합니다.
+ * <p>
+ * ./gradlew benchmark 로 실행하며, 결과는 build/reports/load-test/{시나리오}.json에 저장됩니다.
+ * 저장된 결과를 기준선 디렉터리에 복사해 두고 -Dloadtest.baseline.dir=... 로 지정하면,
+ * 처리량이나 p99가 허용 범위(-Dloadtest.tolerance, 기본 0.2)보다 나빠졌을 때 테스트가 실패합니다.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false"
+})
+@ActiveProfiles("simulator")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndToEndLoadTest {
+
+    private static final int USERS = 1000;
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final int WARMUP_REQUESTS = Math.max(REQUESTS / 10, 100);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+    private static final Path REPORT_DIR = Path.of("build", "reports", "load-test");
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private HttpClient httpClient;
+    private List<Long> userIds;
+
+    @BeforeAll
+    void setUp() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[]{"load-user-" + i, "load-token-" + i});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, fcm_token, created_at, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                rows);
+        userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE username LIKE 'load-user-%' ORDER BY id", Long.class);
+    }
+
+    @Test
+    void sendFriendRequests() throws Exception {
+        // 요청 번호마다 서로 다른 (요청자, 수신자) 쌍을 만들어 중복 요청으로 거절되지 않도록 합니다.
+        int maxPairs = USERS * (USERS - 1);
+        assertThat(WARMUP_REQUESTS + REQUESTS).isLessThanOrEqualTo(maxPairs);
+        LoadTestResult result = run("friend-request", index -> {
+            int requester = index % USERS;
+            int recipient = (requester + 1 + index / USERS) % USERS;
+            String body = "{\"fromId\":" + userIds.get(requester) + ",\"toId\":" + userIds.get(recipient) + "}";
+            return HttpRequest.newBuilder(uri("/api/friend-requests/send"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        });
+        report(result);
+    }
+
+    @Test
+    void updateFcmTokens() throws Exception {
+        LoadTestResult result = run("fcm-token-update", index -> {
+            // 매번 다른 토큰을 보내 실제 UPDATE가 일어나도록 합니다.
+            String username = "load-user-" + (index % USERS);
+            String body = "{\"fcmToken\":\"load-token-" + index + "\"}";
+            return HttpRequest.newBuilder(uri("/api/users/" + username + "/fcm-token"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        });
+        report(result);
+    }
+
+    /**
+     * 워밍업 요청을 먼저 보낸 뒤, CONCURRENCY개의 클라이언트가 REQUESTS개의 요청을 나누어 보내며 응답 시간을 기록합니다.
+     * 각 클라이언트는 응답을 받은 뒤 다음 요청을 보냅니다. (closed-loop)
+     */
+    private LoadTestResult run(String scenario, IntFunction<HttpRequest> requestFactory) throws Exception {
+        drive(0, WARMUP_REQUESTS, requestFactory, new long[WARMUP_REQUESTS], new AtomicInteger());
+
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        drive(WARMUP_REQUESTS, REQUESTS, requestFactory, latencies, errors);
+        long elapsed = System.nanoTime() - start;
+        return LoadTestResult.of(scenario, latencies, errors.get(), CONCURRENCY, elapsed);
+    }
+
+    private void drive(int firstIndex, int count, IntFunction<HttpRequest> requestFactory,
+                       long[] latencies, AtomicInteger errors) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> workers = new ArrayList<>(CONCURRENCY);
+            for (int c = 0; c < CONCURRENCY; c++) {
+                workers.add(clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        HttpRequest request = requestFactory.apply(firstIndex + i);
+                        long sentAt = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() / 100 != 2) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - sentAt;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private void report(LoadTestResult result) throws IOException {
+        System.out.println(result.summary());
+        Files.createDirectories(REPORT_DIR);
+        objectMapper.writeValue(REPORT_DIR.resolve(result.scenario() + ".json").toFile(), result);
+
+        assertThat(result.errors()).as("에러 응답 수").isZero();
+
+        String baselineDir = System.getProperty("loadtest.baseline.dir");
+        if (baselineDir == null) {
+            return;
+        }
+        Path baselineFile = Path.of(baselineDir, result.scenario() + ".json");
+        if (!Files.exists(baselineFile)) {
+            System.out.println("[load-test] 기준선 파일이 없어 비교를 건너뜁니다: " + baselineFile);
+            return;
+        }
+        LoadTestResult baseline = objectMapper.readValue(baselineFile.toFile(), LoadTestResult.class);
+        System.out.println(baseline.summary().replace("[load-test]", "[baseline] "));
+        assertThat(result.throughputRps()).as("처리량 (기준선 대비)")
+                .isGreaterThanOrEqualTo(baseline.throughputRps() * (1 - TOLERANCE));
+        assertThat(result.p99Ms()).as("p99 응답 시간 (기준선 대비)")
+                .isLessThanOrEqualTo(baseline.p99Ms() * (1 + TOLERANCE));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
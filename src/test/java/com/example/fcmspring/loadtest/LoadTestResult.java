@@ -0,0 +1,56 @@
+package com.example.fcmspring.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 부하 테스트 시나리오 한 번의 결과입니다. JSON으로 저장하여 다음 실행의 기준선(baseline)으로 사용합니다.
+ *
+ * @param scenario      시나리오 이름
+ * @param requests      측정한 요청 수
+ * @param errors        2xx가 아닌 응답 또는 전송 실패 수
+ * @param concurrency   동시에 요청을 보낸 클라이언트 수
+ * @param throughputRps 초당 처리한 요청 수
+ * @param p50Ms         응답 시간 50번째 백분위수 (ms)
+ * @param p99Ms         응답 시간 99번째 백분위수 (ms)
+ * @param p999Ms        응답 시간 99.9번째 백분위수 (ms)
+ * @param maxMs         가장 느린 응답 시간 (ms)
+ */
+record LoadTestResult(String scenario,
+                      int requests,
+                      int errors,
+                      int concurrency,
+                      double throughputRps,
+                      double p50Ms,
+                      double p99Ms,
+                      double p999Ms,
+                      double maxMs) {
+
+    static LoadTestResult of(String scenario, long[] latencyNanos, int errors, int concurrency, long elapsedNanos) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        return new LoadTestResult(
+                scenario,
+                sorted.length,
+                errors,
+                concurrency,
+                sorted.length / (elapsedNanos / 1e9),
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.99),
+                percentileMillis(sorted, 0.999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    // nearest-rank 방식의 백분위수
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)] / 1e6;
+    }
+
+    String summary() {
+        return String.format("[load-test] %-16s %6d req, %4d errors, c=%d, %8.0f req/s, p50 %7.2f ms, p99 %7.2f ms, p999 %7.2f ms, max %7.2f ms",
+                scenario, requests, errors, concurrency, throughputRps, p50Ms, p99Ms, p999Ms, maxMs);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.fcmspring.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 빌드된 실행 jar를 별도 프로세스로 띄워, 프로세스 시작부터 첫 요청(/actuator/health)이 200으로 응답하기까지 걸린 시간을 모드별로 측정합니다.
+ * <p>
+ * - jar     : 기본 실행 jar (java -jar)
+ * - cds     : 풀어 놓은 jar + 클래스 데이터 공유 아카이브 (./gradlew cds)
+ * - aot     : Spring AOT 처리된 jar (./gradlew bootJar -Paot)
+ * - aot-cds : AOT + CDS (./gradlew cds -Paot)
+ * <p>
+ * ./gradlew bootJar cds benchmark [-Paot] 로 실행하며, 산출물이 없는 모드는 건너뜁니다.
+ * 결과는 build/reports/startup/{모드}.json에 저장됩니다.
+ */
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final Path REPORT_DIR = Path.of("build", "reports", "startup");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    /**
+     * 시작 시간 측정 결과입니다.
+     *
+     * @param mode     실행 모드
+     * @param runs     측정 횟수
+     * @param medianMs 첫 요청까지 걸린 시간의 중앙값 (ms)
+     * @param minMs    가장 빠른 시간 (ms)
+     * @param maxMs    가장 느린 시간 (ms)
+     */
+    record StartupResult(String mode, int runs, double medianMs, double minMs, double maxMs) {
+
+        static StartupResult of(String mode, long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return new StartupResult(mode, sorted.length, sorted[(sorted.length - 1) / 2] / 1e6,
+                    sorted[0] / 1e6, sorted[sorted.length - 1] / 1e6);
+        }
+
+        String summary() {
+            return String.format("[startup] %-8s: median %.0f ms (min %.0f, max %.0f, %d runs)", mode, medianMs, minMs, maxMs, runs);
+        }
+    }
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        Path jar = Path.of(System.getProperty("startup.jar", "build/libs/fcm-spring-0.0.1-SNAPSHOT.jar"));
+        Path cdsDir = Path.of(System.getProperty("startup.cds.dir", "build/cds"));
+        boolean aot = Boolean.getBoolean("startup.aot");
+        assumeTrue(Files.exists(jar), "실행 jar가 없어 건너뜁니다: " + jar + " (./gradlew bootJar)");
+
+        Path cdsJar = cdsDir.resolve(jar.getFileName());
+        boolean cds = Files.exists(cdsDir.resolve("application.jsa")) && Files.exists(cdsJar);
+        List<String> cdsArgs = List.of("-XX:SharedArchiveFile=" + cdsDir.resolve("application.jsa"), "-jar", cdsJar.toString());
+
+        List<StartupResult> results = new ArrayList<>();
+        results.add(measure("jar", List.of("-jar", jar.toString())));
+        if (cds) {
+            results.add(measure(aot ? "aot-cds" : "cds", aot ? prepend("-Dspring.aot.enabled=true", cdsArgs) : cdsArgs));
+        }
+        if (aot) {
+            results.add(measure("aot", List.of("-Dspring.aot.enabled=true", "-jar", jar.toString())));
+        }
+
+        Files.createDirectories(REPORT_DIR);
+        for (StartupResult result : results) {
+            System.out.println(result.summary());
+            objectMapper.writeValue(REPORT_DIR.resolve(result.mode() + ".json").toFile(), result);
+        }
+    }
+
+    private StartupResult measure(String mode, List<String> launchArgs) throws Exception {
+        // JIT나 디스크 캐시 차이를 줄이기 위해 한 번 띄워 본 뒤 측정합니다.
+        startOnce(mode, 0, launchArgs);
+        long[] nanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            nanos[run] = startOnce(mode, run + 1, launchArgs);
+        }
+        return StartupResult.of(mode, nanos);
+    }
+
+    /**
+     * 애플리케이션을 한 번 띄우고 첫 요청이 성공하기까지 걸린 시간을 돌려줍니다. 측정이 끝나면 프로세스를 종료합니다.
+     */
+    private long startOnce(String mode, int run, List<String> launchArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(launchArgs);
+        command.add("--server.port=" + port);
+        command.add("--spring.jpa.show-sql=false");
+
+        Files.createDirectories(REPORT_DIR);
+        Path log = REPORT_DIR.resolve(mode + "-" + run + ".log");
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                assertThat(process.isAlive()).as("애플리케이션이 시작 중에 종료되었습니다. 로그: " + log).isTrue();
+                try {
+                    if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return System.nanoTime() - start;
+                    }
+                } catch (IOException e) {
+                    // 아직 포트가 열리지 않았습니다.
+                }
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            throw new AssertionError(mode + " 모드가 " + STARTUP_TIMEOUT.toSeconds() + "초 안에 시작되지 않았습니다. 로그: " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static List<String> prepend(String arg, List<String> args) {
+        List<String> result = new ArrayList<>(args.size() + 1);
+        result.add(arg);
+        result.addAll(args);
+        return result;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.fcmspring.notification;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CompiledTemplate이 {숫자} 자리만 인자로 바꾸고, 그 외의 중괄호와 모자란 인자는 글자 그대로 남기는지 확인합니다.
+ */
+class CompiledTemplateTest {
+
+    private static String render(String pattern, String... args) {
+        return CompiledTemplate.compile("test", pattern).render(args);
+    }
+
+    @Test
+    void substitutesArgsInPatternOrder() {
+        assertThat(render("{0} 님 외 {1}명이 친구 요청을 보냈습니다.", "alice", "3"))
+                .isEqualTo("alice 님 외 3명이 친구 요청을 보냈습니다.");
+        // 번역 문구에서는 인자 순서가 바뀔 수 있습니다.
+        assertThat(render("{1} {0}", "a", "b")).isEqualTo("b a");
+    }
+
+    @Test
+    void repeatedIndexUsesSameArg() {
+        assertThat(render("{0}{0}-{0}", "x")).isEqualTo("xx-x");
+    }
+
+    @Test
+    void patternWithoutArgsIsReturnedAsIs() {
+        String pattern = "새 알림이 있습니다.";
+
+        assertThat(CompiledTemplate.compile("test", pattern).render()).isSameAs(pattern);
+        assertThat(CompiledTemplate.compile("test", pattern).render("ignored")).isSameAs(pattern);
+    }
+
+    @Test
+    void nonNumericBracesStayLiteral() {
+        assertThat(render("{", "x")).isEqualTo("{");
+        assertThat(render("{}", "x")).isEqualTo("{}");
+        assertThat(render("{12a}", "x")).isEqualTo("{12a}");
+        assertThat(render("}{", "x")).isEqualTo("}{");
+        assertThat(render("a { b {0}", "x")).isEqualTo("a { b x");
+        assertThat(render("{{0}}", "X")).isEqualTo("{X}");
+    }
+
+    @Test
+    void missingArgKeepsPlaceholder() {
+        assertThat(render("{0} 님 외 {1}명", "alice")).isEqualTo("alice 님 외 {1}명");
+        assertThat(render("{2}")).isEqualTo("{2}");
+    }
+
+    @Test
+    void overlongIndexStaysLiteral() {
+        assertThat(render("{12345678901234567890}", "x")).isEqualTo("{12345678901234567890}");
+        assertThat(render("{1234567890}{0}", "x")).isEqualTo("{1234567890}x");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.fcmspring.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * FcmRateLimiter(GCRA)의 허가 계산을 확인합니다.
+ * 보충 속도를 아주 느리게(0.01개/초 = 100초에 1개) 두어, 테스트 도중 허가가 보충되지 않고 burst만 쓰도록 합니다.
+ */
+class FcmRateLimiterTest {
+
+    private static final double SLOW_RATE = 0.01;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FcmRateLimiter limiter(double permitsPerSecond, int burst) {
+        return new FcmRateLimiter(meterRegistry, "test", permitsPerSecond, burst);
+    }
+
+    @Test
+    void burstIsAvailableImmediately() {
+        FcmRateLimiter limiter = limiter(SLOW_RATE, 5);
+
+        assertThat(limiter.availablePermits()).isEqualTo(5);
+        assertThat(limiter.nanosUntilAvailable(5)).isZero();
+        assertThat(limiter.tryAcquire(5)).isTrue();
+        assertThat(limiter.availablePermits()).isZero();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void failedTryAcquireReservesNothing() {
+        FcmRateLimiter limiter = limiter(SLOW_RATE, 5);
+
+        // burst보다 많이 요청하면 실패하고, 남은 허가는 그대로입니다.
+        assertThat(limiter.tryAcquire(6)).isFalse();
+        assertThat(limiter.availablePermits()).isEqualTo(5);
+        assertThat(limiter.tryAcquire(3)).isTrue();
+        assertThat(limiter.tryAcquire(3)).isFalse();
+        assertThat(limiter.tryAcquire(2)).isTrue();
+    }
+
+    @Test
+    void nanosUntilAvailableCountsMissingPermits() {
+        FcmRateLimiter limiter = limiter(SLOW_RATE, 2);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / SLOW_RATE);
+
+        assertThat(limiter.tryAcquire(2)).isTrue();
+
+        // 허가 1개는 간격 하나, 2개는 간격 둘을 기다려야 합니다. (호출 사이에 흐른 시간만큼 조금 짧을 수 있습니다)
+        assertThat(limiter.nanosUntilAvailable(1)).isBetween(intervalNanos - TimeUnit.SECONDS.toNanos(1), intervalNanos);
+        assertThat(limiter.nanosUntilAvailable(2)).isBetween(2 * intervalNanos - TimeUnit.SECONDS.toNanos(1), 2 * intervalNanos);
+    }
+
+    @Test
+    void disabledLimiterNeverWaits() {
+        FcmRateLimiter limiter = limiter(0, 1);
+
+        assertThat(limiter.tryAcquire(1_000_000)).isTrue();
+        assertThat(limiter.availablePermits()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(limiter.maxBurst()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(limiter.nanosUntilAvailable(1_000_000)).isZero();
+    }
+
+    @Test
+    void acquireWaitsForRefill() throws InterruptedException {
+        // 초당 100개(10ms에 1개), burst 1
+        FcmRateLimiter limiter = limiter(100, 1);
+        limiter.acquire(1);
+
+        long start = System.nanoTime();
+        limiter.acquire(10);
+        long waited = System.nanoTime() - start;
+
+        // 허가 10개를 새로 받으려면 약 100ms를 기다려야 합니다. (스케줄링 지연을 고려해 하한만 확인합니다)
+        assertThat(waited).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(80));
+    }
+
+    @Test
+    void acquireIsInterruptible() {
+        FcmRateLimiter limiter = limiter(SLOW_RATE, 1);
+        limiter.tryAcquire(1);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> limiter.acquire(1)).isInstanceOf(InterruptedException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void concurrentTryAcquireNeverOverGrants() throws Exception {
+        int burst = 1000;
+        int threads = 8;
+        FcmRateLimiter limiter = limiter(SLOW_RATE, burst);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    // 모든 스레드가 허가를 다 쓸 때까지 경쟁합니다. CAS가 겹쳐도 허가가 중복으로 나가면 안 됩니다.
+                    for (int i = 0; i < burst; i++) {
+                        if (limiter.tryAcquire(1)) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(burst);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}